@@ -3,7 +3,7 @@
 package org.aya.normalize;
 
 import kala.collection.immutable.ImmutableSeq;
-import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableSet;
 import kala.collection.mutable.MutableSinglyLinkedList;
 import org.aya.generic.TermVisitor;
 import org.aya.normalize.error.UnsolvedLit;
@@ -15,6 +15,7 @@ import org.aya.syntax.core.annotation.Closed;
 import org.aya.syntax.core.def.Matchy;
 import org.aya.syntax.core.term.MetaPatTerm;
 import org.aya.syntax.core.term.Param;
+import org.aya.syntax.core.term.ScopeSummary;
 import org.aya.syntax.core.term.Term;
 import org.aya.syntax.core.term.call.MatchCall;
 import org.aya.syntax.core.term.call.MetaCall;
@@ -31,6 +32,7 @@ public interface Finalizer extends TermVisitor {
   @NotNull TyckState state();
 
   @Override @NotNull default Term term(@Closed @NotNull Term term) {
+    if (!ScopeSummary.mayHaveMeta(term)) return term;
     return switch (term) {
       case MetaCall meta -> state().computeSolution(meta, this::term);
       case MetaPatTerm meta -> meta.inline(this::term);
@@ -60,10 +62,10 @@ public interface Finalizer extends TermVisitor {
    */
   record Zonk<T extends Problematic & Stateful>(
     @NotNull T delegate, @NotNull MutableSinglyLinkedList<Term> stack,
-    @NotNull MutableList<MetaVar> alreadyReported
+    @NotNull MutableSet<MetaVar> alreadyReported
   ) implements Finalizer, Stateful, Problematic {
     public Zonk(@NotNull T delegate) {
-      this(delegate, MutableSinglyLinkedList.create(), MutableList.create());
+      this(delegate, MutableSinglyLinkedList.create(), MutableSet.create());
     }
     @Override public @NotNull TyckState state() { return delegate.state(); }
     @Override public @NotNull Reporter reporter() { return delegate.reporter(); }
@@ -73,12 +75,17 @@ public interface Finalizer extends TermVisitor {
     }
 
     public @NotNull Term term(@Closed @NotNull Term term) {
+      var table = state().termTable;
+      // Nothing to zonk or to report, but the sub-terms still need to be shared
+      if (!ScopeSummary.mayHaveMeta(term)) return table == null ? term : table.intern(term);
       stack.push(term);
       var result = Finalizer.super.term(term);
+      // Sub-terms are zonked (and shared) before their parents, so a shallow share is enough
+      if (table != null) result = table.share(result);
       // result shall not be MetaPatTerm
       switch (result) {
         case MetaCall(var ref, _) when !ref.isUser() && !alreadyReported.contains(ref) -> {
-          alreadyReported.append(ref);
+          alreadyReported.add(ref);
           Problem error;
           if (ref.req() instanceof MetaVar.OfType.ClassType clazz) {
             error = new ClassError.InstanceAmbiguous(ref.pos(),
@@ -11,11 +11,14 @@ import kala.control.Result;
 import org.aya.generic.Modifier;
 import org.aya.generic.TermVisitor;
 import org.aya.states.TyckState;
+import org.aya.states.WhnfCache;
 import org.aya.syntax.compile.JitFn;
 import org.aya.syntax.compile.JitMatchy;
 import org.aya.syntax.core.annotation.Closed;
+import org.aya.syntax.core.def.FnClauseBody;
 import org.aya.syntax.core.def.FnDef;
 import org.aya.syntax.core.def.Matchy;
+import org.aya.syntax.core.pat.ClauseIndex;
 import org.aya.syntax.core.pat.PatMatcher;
 import org.aya.syntax.core.term.*;
 import org.aya.syntax.core.term.call.*;
@@ -87,12 +90,23 @@ public final class Normalizer implements UnaryOperator<Term> {
     return new DisjCofNF(ret.toImmutableArray());
   }
 
+  /// Reduce {@param term} to its head normal form, consulting {@link TyckState#whnfCache} if present.
+  @Override public @Closed @NotNull Term apply(@Closed @NotNull Term term) {
+    var cache = state.whnfCache;
+    if (cache == null || fullNormalize || !WhnfCache.cacheable(term)) return reduce(term);
+    var cached = cache.get(state.solutions.size(), opaque, term);
+    if (cached != null) return cached;
+    var whnf = reduce(term);
+    cache.put(term, whnf);
+    return whnf;
+  }
+
   /**
    * This function is tail-recursion optimized.
    * To tail-recursively call `apply`, assign `term` with the result and `continue`.
    */
-  @SuppressWarnings("UnnecessaryContinue") @Override
-  public @Closed @NotNull Term apply(@Closed @NotNull Term term) {
+  @SuppressWarnings("UnnecessaryContinue")
+  private @Closed @NotNull Term reduce(@Closed @NotNull Term term) {
     while (true) {
       var alreadyWHNF = term instanceof StableWHNF ||
         term instanceof FreeTerm ||
@@ -149,17 +163,21 @@ public final class Normalizer implements UnaryOperator<Term> {
           }
         }
 
-        case FnCall(JitFn instance, int ulift, var args, var tc) -> {
-          args = Callable.descent(args, this);
+        case FnCall call when call.ref() instanceof JitFn instance -> {
+          var ulift = call.ulift();
+          var args = Callable.descent(call.args(), this);
           var result = instance.invoke(this, args);
-          if (result instanceof FnCall(var ref, _, var newArgs, _) && ref == instance) {
-            if (newArgs.sameElements(args, true)) return term;
-            if (fullNormalize) return new FnCall(ref, ulift, args, tc);
+          if (result instanceof FnCall stuck && stuck.ref() == instance) {
+            if (stuck.args().sameElements(args, true)) return term;
+            if (fullNormalize) return new FnCall(instance, ulift, args, call.tailCall());
           }
           term = result.elevate(ulift);
           continue;
         }
-        case FnCall(FnDef.Delegate delegate, int ulift, var args, var tc) -> {
+        case FnCall fnCall when fnCall.ref() instanceof FnDef.Delegate delegate -> {
+          var ulift = fnCall.ulift();
+          var args = fnCall.args();
+          var tc = fnCall.tailCall();
           var whnfArgs = Callable.descent(args, this);
           FnDef core = delegate.core();
           if (core == null) {
@@ -171,13 +189,23 @@ public final class Normalizer implements UnaryOperator<Term> {
               continue;
             }
             case Either.Right(var body): {
-              var result = tryUnfoldClauses(body.matchingsView(),
-                whnfArgs, core.is(Modifier.Overlap), ulift);
+              var overlap = core.is(Modifier.Overlap);
+              var result = tryUnfoldClauses(body, whnfArgs, overlap, ulift);
               // we may get stuck
               if (result == null) {
                 if (args.sameElements(whnfArgs, true)) return term;
                 return new FnCall(delegate, ulift, whnfArgs, tc);
               }
+              // The self tail calls of a `tailrec` function are unfolded in place, like the loop generated by the JIT,
+              // so we don't go through the whole dispatch above once per iteration.
+              while (result instanceof FnCall call && call.tailCall() && delegate.equals(call.ref())) {
+                var callArgs = Callable.descent(call.args(), this);
+                result = tryUnfoldClauses(body, callArgs, overlap, call.ulift());
+                if (result == null) {
+                  if (call.args().sameElements(callArgs, true)) return call;
+                  return new FnCall(delegate, call.ulift(), callArgs, true);
+                }
+              }
               term = result;
               continue;
             }
@@ -319,6 +347,17 @@ public final class Normalizer implements UnaryOperator<Term> {
       body.elevate(ulift).instTele(subst.view()));
   }
 
+  /// Like [#tryUnfoldClauses(SeqView, ImmutableSeq, boolean, int)], but only tries the clauses
+  /// that are not ruled out by the [ClauseIndex] of {@param body}.
+  public @Nullable Term tryUnfoldClauses(
+    @NotNull FnClauseBody body, @NotNull ImmutableSeq<Term> args,
+    boolean orderIndependent, int ulift
+  ) {
+    var candidates = body.index().candidates(args);
+    var clauses = body.clauses;
+    return tryUnfoldClauses(candidates.mapToObj(i -> clauses.get(i).data()).view(), args, orderIndependent, ulift);
+  }
+
   private class Full implements UnaryOperator<Term> {
     { fullNormalize = true; }
 
@@ -2,8 +2,6 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.resolve.module;
 
-import kala.collection.mutable.MutableMap;
-import kala.collection.mutable.MutableTreeMap;
 import kala.control.Result;
 import org.aya.resolve.ResolveInfo;
 import org.aya.resolve.error.LoadErrorKind;
@@ -11,27 +9,66 @@ import org.aya.syntax.ref.ModulePath;
 import org.aya.util.reporter.ClearableReporter;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
+ * The cache is safe for concurrent use: a module is loaded at most once,
+ * even when several loaders derived by {@link #derive} request it at the same time.
+ *
  * @author re-xyr
  */
 public class CachedModuleLoader<ML extends ModuleLoader> implements ModuleLoader {
-  private final @NotNull MutableMap<@NotNull String, ResolveInfo> cache = MutableTreeMap.of();
+  private final @NotNull ConcurrentHashMap<@NotNull String, ResolveInfo> cache;
+  /**
+   * Locks of the modules being loaded, removed once the load completes.
+   * We cannot use {@link ConcurrentHashMap#computeIfAbsent} on the cache since loading is recursive.
+   */
+  private final @NotNull ConcurrentHashMap<@NotNull String, Object> loading;
   public final @NotNull ML loader;
 
   @Override public @NotNull ClearableReporter reporter() { return loader.reporter(); }
-  public CachedModuleLoader(@NotNull ML loader) { this.loader = loader; }
+  public CachedModuleLoader(@NotNull ML loader) { this(loader, new ConcurrentHashMap<>(), new ConcurrentHashMap<>()); }
+  private CachedModuleLoader(
+    @NotNull ML loader,
+    @NotNull ConcurrentHashMap<String, ResolveInfo> cache,
+    @NotNull ConcurrentHashMap<String, Object> loading
+  ) {
+    this.loader = loader;
+    this.cache = cache;
+    this.loading = loading;
+  }
+
+  /// @return a loader that shares the cache with this one, but loads modules with {@param loader},
+  ///         used for loading modules with different reporters concurrently.
+  public <L extends ModuleLoader> @NotNull CachedModuleLoader<L> derive(@NotNull L loader) {
+    return new CachedModuleLoader<>(loader, cache, loading);
+  }
 
   @Override public @NotNull Result<ResolveInfo, LoadErrorKind>
   load(@NotNull ModulePath path, @NotNull ModuleLoader recurseLoader) {
     var qualified = path.toString();
 
-    var cached = cache.getOrNull(qualified);
-    if (cached != null) return Result.ok(cached);
+    while (true) {
+      var cached = cache.get(qualified);
+      if (cached != null) return Result.ok(cached);
+
+      var lock = loading.computeIfAbsent(qualified, _ -> new Object());
+      synchronized (lock) {
+        // The lock is dropped once a load completes, so if it is not the current one,
+        // someone else has loaded (or failed to load) the module while we are waiting, check again.
+        if (loading.get(qualified) != lock) continue;
+        cached = cache.get(qualified);
+        if (cached != null) return Result.ok(cached);
 
-    // we don't have `getOrPutChecked`, sorry
-    var loaded = loader.load(path, recurseLoader);
-    loaded.forEach(t -> cache.put(qualified, t));
-    return loaded;
+        try {
+          var loaded = loader.load(path, recurseLoader);
+          loaded.forEach(t -> cache.put(qualified, t));
+          return loaded;
+        } finally {
+          loading.remove(qualified, lock);
+        }
+      }
+    }
   }
 
   @Override public boolean existsFileLevelModule(@NotNull ModulePath path) {
@@ -14,6 +14,7 @@ import org.aya.states.primitive.PrimFactory;
 import org.aya.states.primitive.ShapeFactory;
 import org.aya.syntax.concrete.stmt.Stmt;
 import org.aya.syntax.ref.ModulePath;
+import org.aya.tyck.TyckOptions;
 import org.aya.tyck.order.AyaOrgaTycker;
 import org.aya.tyck.order.AyaSccTycker;
 import org.aya.tyck.tycker.Problematic;
@@ -31,12 +32,18 @@ public interface ModuleLoader extends Problematic {
 
   default <E extends Exception> @NotNull ResolveInfo
   tyckModule(@NotNull ResolveInfo resolveInfo, ModuleCallback<E> onTycked) throws E {
+    return tyckModule(resolveInfo, TyckOptions.DEFAULT, onTycked);
+  }
+
+  default <E extends Exception> @NotNull ResolveInfo
+  tyckModule(@NotNull ResolveInfo resolveInfo, @NotNull TyckOptions options, ModuleCallback<E> onTycked) throws E {
     var SCCs = resolveInfo.depGraph().topologicalOrder();
     var delayedReporter = new DelayedReporter(reporter());
-    var sccTycker = new AyaOrgaTycker(AyaSccTycker.create(resolveInfo, delayedReporter), resolveInfo);
+    var sccTycker = new AyaOrgaTycker(AyaSccTycker.create(resolveInfo, delayedReporter, options), resolveInfo);
     // in case we have un-messaged TyckException
     try (delayedReporter) {
-      SCCs.forEach(sccTycker::tyckSCC);
+      if (options.bodyJobs() > 1) sccTycker.tyckParallel(SCCs, options.bodyJobs());
+      else SCCs.forEach(sccTycker::tyckSCC);
     } finally {
       if (onTycked != null) onTycked.onModuleTycked(
         resolveInfo, sccTycker.sccTycker().wellTyped().toSeq());
@@ -20,7 +20,8 @@ public record DesugarMisc(@NotNull ResolveInfo info, @NotNull Reporter reporter)
   private @Nullable Integer levelVar(@NotNull WithPos<Expr> expr) {
     return switch (expr.data()) {
       case Expr.BinOpSeq _ -> levelVar(expr.descent(this));
-      case Expr.LitInt i -> i.integer();
+      // Too large levels are reported at tyck stage
+      case Expr.LitInt i -> i.integer().bitLength() < Integer.SIZE ? i.integer().intValue() : null;
       default -> null;
     };
   }
@@ -16,11 +16,11 @@ import org.jetbrains.annotations.NotNull;
 public class GlobalInstanceSet {
   private final @NotNull MutableMap<ClassDefLike, MutableList<FnDefLike>> instanceMap = MutableMap.create();
 
-  public void put(@NotNull ClassDefLike clazz, @NotNull FnDefLike instance) {
+  public synchronized void put(@NotNull ClassDefLike clazz, @NotNull FnDefLike instance) {
     instanceMap.getOrPut(clazz, MutableList::create).append(instance);
   }
 
-  @NotNull Seq<FnDefLike> findInstanceDecls(@NotNull ClassDefLike clazz) {
+  synchronized @NotNull Seq<FnDefLike> findInstanceDecls(@NotNull ClassDefLike clazz) {
     return instanceMap.getOrPut(clazz, MutableList::create);
   }
 }
@@ -0,0 +1,154 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.states;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.generic.TermVisitor;
+import org.aya.syntax.core.Closure;
+import org.aya.syntax.core.term.AppTerm;
+import org.aya.syntax.core.term.FreeTerm;
+import org.aya.syntax.core.term.ScopeSummary;
+import org.aya.syntax.core.term.SortTerm;
+import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.ConCall;
+import org.aya.syntax.core.term.call.DataCall;
+import org.aya.syntax.core.term.call.FnCall;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/// A hash-consing table of closed core terms, so that structurally equal terms are shared,
+/// and comparisons like [org.aya.unify.TermComparator] can succeed by identity.
+///
+/// Only [SortTerm], [FreeTerm], [AppTerm], [FnCall], [ConCall] and [DataCall] that contain
+/// no loose [org.aya.syntax.core.term.LocalTerm] and no metas are shared.
+/// The table is keyed by the head of a term and the _identities_ of its sub-terms,
+/// so it is cheap to look up a term whose sub-terms are already shared, see [#share].
+/// Sorts and free variables have no sub-terms, they are keyed by their values.
+///
+/// The shared terms are weakly referenced, so an entry is dropped once its term is unreachable.
+/// The table is thread-safe, so the bodies of a module checked in parallel share one table,
+/// see [org.aya.tyck.order.AyaOrgaTycker#tyckParallel].
+///
+/// @see TyckState#termTable
+/// @see org.aya.tyck.TyckOptions#shareTerms
+public final class TermTable {
+  private record Key(@NotNull Object head, int extra, @NotNull Term @NotNull [] children) {
+    @Override public boolean equals(@Nullable Object o) {
+      if (!(o instanceof Key(var oHead, var oExtra, var oChildren))) return false;
+      if (extra != oExtra || !head.equals(oHead) || children.length != oChildren.length) return false;
+      for (int i = 0; i < children.length; i++) if (children[i] != oChildren[i]) return false;
+      return true;
+    }
+
+    @Override public int hashCode() {
+      var hash = head.hashCode() * 31 + extra;
+      for (var child : children) hash = hash * 31 + System.identityHashCode(child);
+      return hash;
+    }
+  }
+
+  private static final class Entry extends WeakReference<Term> {
+    private final @NotNull Key key;
+    private Entry(@NotNull Term term, @NotNull Key key, @NotNull ReferenceQueue<Term> queue) {
+      super(term, queue);
+      this.key = key;
+    }
+  }
+
+  private static final @NotNull Term @NotNull [] NO_CHILDREN = new Term[0];
+
+  private final @NotNull ConcurrentHashMap<Key, Entry> table = new ConcurrentHashMap<>();
+  private final @NotNull ReferenceQueue<Term> queue = new ReferenceQueue<>();
+  private final @NotNull LongAdder hits = new LongAdder();
+
+  /// Share {@param term} and all its sub-terms (except those under binders).
+  public @NotNull Term intern(@NotNull Term term) {
+    return share(term.descent(new TermVisitor() {
+      @Override public @NotNull Term term(@NotNull Term term) { return intern(term); }
+      @Override public @NotNull Closure closure(@NotNull Closure closure) { return closure; }
+    }));
+  }
+
+  /// Share {@param term} itself, assuming its sub-terms are already shared.
+  /// This is meant to be called on the results of a bottom-up traversal, like [org.aya.normalize.Finalizer.Zonk].
+  public @NotNull Term share(@NotNull Term term) {
+    var key = key(term);
+    if (key == null) return term;
+    expunge();
+    var fresh = new Entry(term, key, queue);
+    while (true) {
+      var entry = table.putIfAbsent(key, fresh);
+      if (entry == null) return term;
+      var shared = entry.get();
+      if (shared != null) {
+        hits.increment();
+        return shared;
+      }
+      // The shared term is collected, but its entry is not expunged yet
+      if (table.replace(key, entry, fresh)) return term;
+    }
+  }
+
+  private @Nullable Key key(@NotNull Term term) {
+    return switch (term) {
+      // Keyed by value, a key must not refer to the term it is for, or the term is never collected
+      case SortTerm(var kind, var lift) -> new Key(kind, lift, NO_CHILDREN);
+      case FreeTerm(var name) -> new Key(name, 0, NO_CHILDREN);
+      case AppTerm(var fun, var arg) when closed(fun) && closed(arg) ->
+        new Key(AppTerm.class, 0, new Term[]{fun, arg});
+      case FnCall call when closed(call.summary()) ->
+        new Key(call.ref(), call.ulift() * 2 + (call.tailCall() ? 1 : 0), children(ImmutableSeq.empty(), call.args()));
+      case DataCall call when closed(call.summary()) ->
+        new Key(call.ref(), call.ulift(), children(ImmutableSeq.empty(), call.args()));
+      case ConCall call when closed(call.summary()) ->
+        // The size of owner args is determined by the constructor, so it is not part of the key
+        new Key(call.ref(), call.ulift(), children(call.head().ownerArgs(), call.conArgs()));
+      default -> null;
+    };
+  }
+
+  private static boolean closed(int summary) {
+    return ScopeSummary.looseBound(summary) == 0 && !ScopeSummary.hasMeta(summary);
+  }
+
+  /// Only the spines of applications need to be traversed, the calls know whether they are closed
+  private static boolean closed(@NotNull Term term) {
+    return switch (term) {
+      case SortTerm _, FreeTerm _ -> true;
+      case AppTerm(var fun, var arg) -> closed(fun) && closed(arg);
+      default -> {
+        var summary = ScopeSummary.cached(term);
+        yield summary != -1 && closed(summary);
+      }
+    };
+  }
+
+  private static @NotNull Term @NotNull [] children(@NotNull ImmutableSeq<Term> a, @NotNull ImmutableSeq<Term> b) {
+    var children = new Term[a.size() + b.size()];
+    for (int i = 0; i < a.size(); i++) children[i] = a.get(i);
+    for (int i = 0; i < b.size(); i++) children[a.size() + i] = b.get(i);
+    return children;
+  }
+
+  private void expunge() {
+    for (var ref = queue.poll(); ref != null; ref = queue.poll()) {
+      var entry = (Entry) ref;
+      table.remove(entry.key, entry);
+    }
+  }
+
+  public int hits() { return hits.intValue(); }
+  public int size() {
+    expunge();
+    return table.size();
+  }
+  public void clear() {
+    table.clear();
+    expunge();
+  }
+}
@@ -26,23 +26,38 @@ import org.aya.tyck.error.MetaVarError;
 import org.aya.unify.Unifier;
 import org.aya.util.*;
 import org.aya.util.position.SourcePos;
-import org.aya.util.position.WithPos;
 import org.aya.util.reporter.Reporter;
 import org.aya.util.reporter.ThrowingReporter;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 
 public final class TyckState {
+  /// The postponed equations, in the order they are added
   private final @NotNull MutableList<Eqn> eqns = MutableList.create();
-  private final @NotNull MutableList<WithPos<MetaVar>> activeMetas = MutableList.create();
+  /// The postponed equations indexed by the meta on their left-hand side, which blocks them
+  private final @NotNull MutableMap<MetaVar, MutableList<Eqn>> blocked = MutableMap.create();
+  /// The metas that block some equations and are solved since the last [#simplify]
+  private final @NotNull ArrayDeque<MetaVar> wakeups = new ArrayDeque<>();
+  private int postponedCount = 0;
+  private int wokenCount = 0;
+  private int retriedCount = 0;
   public final @NotNull MutableMap<MetaVar, Term> solutions = MutableMap.create();
   public final @NotNull ShapeFactory shapeFactory;
   public final @NotNull PrimFactory primFactory;
   private final @NotNull MutableMap<LocalVar, DynamicForest.Handle> connections = MutableMap.create();
+  /// Opt-in, set this to a [WhnfCache] to memoize head normal forms computed by [org.aya.normalize.Normalizer],
+  /// see [org.aya.tyck.TyckOptions#whnfCacheSize].
+  public @Nullable WhnfCache whnfCache = null;
+  /// Opt-in, set this to a [TermTable] to share the closed terms produced by [org.aya.normalize.Finalizer.Zonk],
+  /// see [org.aya.tyck.TyckOptions#shareTerms].
+  public @Nullable TermTable termTable = null;
 
   public static final DynamicForest.Handle I0 = DynamicForest.create();
   public static final DynamicForest.Handle I1 = DynamicForest.create();
@@ -78,18 +93,30 @@ public final class TyckState {
     var r = computeHandle(rhs, true);
     if (l == null || r == null) throw new Panic("Unsupported connection, need error report");
     l.connect(r);
+    invalidateWhnfCache();
   }
 
   public void disconnect(@NotNull Term lhs, @NotNull Term rhs) {
     var l = computeHandle(lhs, false);
     var r = computeHandle(rhs, false);
     if (l != null && r != null) l.disconnect(r);
+    invalidateWhnfCache();
   }
 
-  public void removeConnection(@NotNull LocalVar var) { connections.remove(var); }
+  public void removeConnection(@NotNull LocalVar var) {
+    connections.remove(var);
+    invalidateWhnfCache();
+  }
+
+  private void invalidateWhnfCache() {
+    if (whnfCache != null) whnfCache.invalidate();
+  }
 
   @ApiStatus.Internal
-  public void solve(MetaVar meta, Term candidate) { solutions.put(meta, candidate); }
+  public void solve(MetaVar meta, Term candidate) {
+    solutions.put(meta, candidate);
+    if (blocked.containsKey(meta)) wakeups.add(meta);
+  }
 
   @ApiStatus.Internal
   public @NotNull Decision solveEqn(@NotNull Reporter reporter, @NotNull Eqn eqn, boolean allowDelay) {
@@ -114,6 +141,7 @@ public final class TyckState {
       } else postSimplificationSize = frozenEqns.size();
       // If the standard 'pattern' fragment cannot solve all equations, try to use a nonstandard method
       if (frozenEqns.isNotEmpty()) for (var eqn : frozenEqns) {
+        retriedCount++;
         if (solveEqn(reporter, eqn, false) == Decision.YES) evilEqns.append(eqn);
       }
     }
@@ -170,41 +198,69 @@ public final class TyckState {
   }
 
   public @Closed @NotNull Term computeSolution(@Closed @NotNull MetaCall meta, @NotNull UnaryOperator<@Closed Term> f) {
-    return solutions.getOption(meta.ref())
-      .map(sol -> f.apply(MetaCall.app(sol, meta.args(), meta.ref().ctxSize())))
-      .getOrElse(() -> {
-        if (!(meta.ref().req() instanceof MetaVar.OfType.ClassType classType)) return meta;
-        return computeSolution(meta, classType, f);
-      });
+    var ref = meta.ref();
+    var sol = solutions.getOrNull(ref);
+    if (sol != null) return f.apply(MetaCall.app(compress(ref, sol), meta.args(), ref.ctxSize()));
+    if (!(ref.req() instanceof MetaVar.OfType.ClassType classType)) return meta;
+    return computeSolution(meta, classType, f);
+  }
+
+  /// Path compression: if {@param meta} is solved to another solved meta, which may again be solved to another meta,
+  /// replace its solution with the end of the chain, so the chain is only followed once.
+  ///
+  /// @param sol the solution of {@param meta}
+  /// @return the new solution of {@param meta}, which means the same thing
+  private @Bound @NotNull Term compress(@NotNull MetaVar meta, @Bound @NotNull Term sol) {
+    if (!(sol instanceof MetaCall next) || !solutions.containsKey(next.ref())) return sol;
+    // The solution is bound by the context of the meta, so it is instantiated with fresh variables first
+    var vars = ImmutableSeq.fill(meta.ctxSize(), _ -> LocalVar.generate("_"));
+    var term = sol.instTeleVar(vars.view());
+    while (term instanceof MetaCall call) {
+      var callSol = solutions.getOrNull(call.ref());
+      if (callSol == null) break;
+      term = MetaCall.app(compress(call.ref(), callSol), call.args(), call.ref().ctxSize());
+    }
+    var compressed = term.bindTele(vars.view());
+    // The meaning of the solutions does not change, so the metas blocked by it need not be woken
+    solutions.put(meta, compressed);
+    return compressed;
   }
 
-  /** @return true if <code>this.eqns</code> and <code>this.activeMetas</code> are mutated. */
+  /// Checks the equations blocked by the solved metas again, until no more blocking metas are solved.
+  /// Only these equations are visited, the others stay where they are.
+  ///
+  /// @return true if <code>this.eqns</code> is mutated.
   private boolean simplify(@NotNull Reporter reporter) {
-    var removingMetas = MutableList.<WithPos<MetaVar>>create();
-    for (var activeMeta : activeMetas) {
-      var v = activeMeta.data();
-      if (solutions.containsKey(v)) {
-        eqns.retainIf(eqn -> {
-          // If the blocking meta is solved, we can check again
-          if (eqn.lhs.ref() == v) {
-            solveEqn(reporter, eqn, true);
-            return false;
-          } else return true;
-        });
-        removingMetas.append(activeMeta);
+    var woken = Collections.newSetFromMap(new IdentityHashMap<Eqn, Boolean>());
+    while (!wakeups.isEmpty()) {
+      var meta = wakeups.poll();
+      var blockedEqns = blocked.getOrNull(meta);
+      if (blockedEqns == null) continue;
+      blocked.remove(meta);
+      // The blocking meta is solved, we can check again
+      for (var eqn : blockedEqns) {
+        woken.add(eqn);
+        wokenCount++;
+        solveEqn(reporter, eqn, true);
       }
     }
-    activeMetas.removeIf(removingMetas::contains);
-    return removingMetas.isNotEmpty();
+    if (woken.isEmpty()) return false;
+    eqns.retainIf(eqn -> !woken.contains(eqn));
+    return true;
   }
 
   public void addEqn(@Closed Eqn eqn) {
+    assert hasUnsolvedMeta(eqn) : "Adding a bad equation";
     eqns.append(eqn);
-    var currentActiveMetas = activeMetas.size();
+    blocked.getOrPut(eqn.lhs.ref(), MutableList::create).append(eqn);
+    postponedCount++;
+  }
+
+  private boolean hasUnsolvedMeta(@NotNull Eqn eqn) {
     var consumer = new Consumer<Term>() {
+      boolean found = false;
       @Override public void accept(Term term) {
-        if (term instanceof MetaCall hole && !solutions.containsKey(hole.ref()))
-          activeMetas.append(new WithPos<>(eqn.pos, hole.ref()));
+        if (term instanceof MetaCall hole && !solutions.containsKey(hole.ref())) found = true;
         term.descent(TermVisitor.of(tm -> {
           accept(tm);
           return tm;
@@ -213,13 +269,22 @@ public final class TyckState {
     };
     consumer.accept(eqn.lhs);
     consumer.accept(eqn.rhs);
-    assert activeMetas.sizeGreaterThan(currentActiveMetas) : "Adding a bad equation";
+    return consumer.found;
   }
 
+  /// The number of equations postponed by [#addEqn], for profiling
+  public int postponedCount() { return postponedCount; }
+  /// The number of postponed equations checked again because their blocking metas are solved
+  public int wokenCount() { return wokenCount; }
+  /// The number of postponed equations checked again by [#solveMetas] with vague solutions allowed
+  public int retriedCount() { return retriedCount; }
+
   public void clearTmp() {
     eqns.clear();
-    activeMetas.clear();
+    blocked.clear();
+    wakeups.clear();
     solutions.clear();
+    invalidateWhnfCache();
   }
 
   public record Eqn(
@@ -0,0 +1,77 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.states;
+
+import kala.collection.immutable.ImmutableSet;
+import org.aya.syntax.core.annotation.Closed;
+import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.FnCall;
+import org.aya.syntax.core.term.call.MatchCall;
+import org.aya.syntax.core.term.call.RuleReducer;
+import org.aya.syntax.ref.AnyVar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// A bounded cache of head normal forms, used by [org.aya.normalize.Normalizer] in whnf mode.
+/// The keys are compared by identity: core terms are records, so hashing them structurally
+/// would traverse all the arguments of a call on each lookup, which may cost more than the reduction.
+/// The least recently used entry is evicted once the cache is full.
+///
+/// A head normal form depends on the meta solutions, the cofibration connections of the [TyckState],
+/// and on the set of opaque definitions of the normalizer, so the cache is cleared once any of them changes.
+///
+/// @see TyckState#whnfCache
+/// @see org.aya.tyck.TyckOptions#whnfCacheSize
+public final class WhnfCache {
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private record Key(@NotNull Term term) {
+    @Override public boolean equals(@Nullable Object o) { return o instanceof Key(var other) && other == term; }
+    @Override public int hashCode() { return System.identityHashCode(term); }
+  }
+
+  private final @NotNull LinkedHashMap<Key, Term> cache;
+  private int solutionCount = 0;
+  private @NotNull ImmutableSet<AnyVar> opaque = ImmutableSet.empty();
+  private int hits = 0;
+  private int misses = 0;
+
+  public WhnfCache(int capacity) {
+    cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override protected boolean removeEldestEntry(Map.Entry<Key, Term> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  public WhnfCache() { this(DEFAULT_CAPACITY); }
+
+  /// Only calls to definitions are worth caching, other terms are either already in whnf,
+  /// or cheap to reduce.
+  public static boolean cacheable(@NotNull Term term) {
+    return term instanceof FnCall || term instanceof MatchCall || term instanceof RuleReducer.Fn;
+  }
+
+  public @Nullable Term get(int solutionCount, @NotNull ImmutableSet<AnyVar> opaque, @Closed @NotNull Term term) {
+    if (this.solutionCount != solutionCount || !this.opaque.equals(opaque)) {
+      invalidate();
+      this.solutionCount = solutionCount;
+      this.opaque = opaque;
+    }
+    var whnf = cache.get(new Key(term));
+    if (whnf == null) misses++;
+    else hits++;
+    return whnf;
+  }
+
+  /// Must be called right after a [#get] that misses.
+  public void put(@Closed @NotNull Term term, @Closed @NotNull Term whnf) { cache.put(new Key(term), whnf); }
+  public void invalidate() { cache.clear(); }
+
+  public int hits() { return hits; }
+  public int misses() { return misses; }
+  public int size() { return cache.size(); }
+}
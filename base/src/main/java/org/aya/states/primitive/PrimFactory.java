@@ -38,6 +38,8 @@ import static org.aya.syntax.core.def.PrimDef.familyI2J;
 import static org.aya.syntax.core.term.SortTerm.Set0;
 import static org.aya.syntax.core.term.SortTerm.Type0;
 
+/// Safe for concurrent use, since one factory is shared by all modules of a library,
+/// which may be type checked in parallel.
 public class PrimFactory {
   private final @NotNull Map<@NotNull ID, @NotNull PrimSeed> seeds;
   private final @NotNull EnumMap<@NotNull ID, @NotNull PrimDefLike> defs = new EnumMap<>(ID.class);
@@ -57,18 +59,22 @@ public class PrimFactory {
     ).map(seed -> Tuple.of(seed.name, seed)));
   }
 
-  public void definePrim(PrimDefLike prim) {
+  public synchronized void definePrim(PrimDefLike prim) {
     if (defs.get(prim.id()) == prim) return;
     assert !isForbiddenRedefinition(prim.id(), prim instanceof JitPrim);
     defs.put(prim.id(), prim);
   }
 
   public void importFrom(@NotNull PrimFactory primFactory) {
-    for (var prim : primFactory.defs.values()) definePrim(prim);
+    for (var prim : primFactory.defs()) definePrim(prim);
+  }
+
+  private synchronized @NotNull ImmutableSeq<PrimDefLike> defs() {
+    return ImmutableSeq.from(defs.values());
   }
 
   @Contract("-> new")
-  public EnumMap<ID, QName> qnameMap() {
+  public synchronized EnumMap<ID, QName> qnameMap() {
     var map = new EnumMap<ID, QName>(ID.class);
     defs.forEach((key, value) -> map.put(key, value.qualifiedName()));
     return map;
@@ -242,11 +248,11 @@ public class PrimFactory {
     return new PrimCall(getOption(id).get());
   }
 
-  public @NotNull Option<PrimDefLike> getOption(@NotNull ID name) {
+  public synchronized @NotNull Option<PrimDefLike> getOption(@NotNull ID name) {
     return Option.ofNullable(defs.get(name));
   }
 
-  public boolean have(@NotNull ID name) {
+  public synchronized boolean have(@NotNull ID name) {
     return defs.containsKey(name);
   }
 
@@ -257,7 +263,7 @@ public class PrimFactory {
   ///   replace the existing PrimDefs with their JIT-compiled version.
   ///
   /// @return true if redefinition is forbidden.
-  @ForLSP public boolean isForbiddenRedefinition(@NotNull PrimDef.ID id, boolean isJit) {
+  @ForLSP public synchronized boolean isForbiddenRedefinition(@NotNull PrimDef.ID id, boolean isJit) {
     if (isJit)
       return have(id) && defs.get(id) instanceof JitPrim;
     else return have(id);
@@ -272,6 +278,6 @@ public class PrimFactory {
     return seeds.get(id).unfold.apply(primCall, state);
   }
 
-  public void clear() { defs.clear(); }
-  public void clear(@NotNull ID name) { defs.remove(name); }
+  public synchronized void clear() { defs.clear(); }
+  public synchronized void clear(@NotNull ID name) { defs.remove(name); }
 }
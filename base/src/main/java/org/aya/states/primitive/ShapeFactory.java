@@ -7,6 +7,7 @@ import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableLinkedHashMap;
 import kala.collection.mutable.MutableMap;
 import kala.control.Option;
+import kala.tuple.Tuple2;
 import org.aya.syntax.core.def.AnyDef;
 import org.aya.syntax.core.def.TyckAnyDef;
 import org.aya.syntax.core.def.TyckDef;
@@ -15,17 +16,24 @@ import org.aya.syntax.core.repr.ShapeRecognition;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+/// The shapes discovered so far. The bodies of functions in a module may be checked in parallel,
+/// see [org.aya.tyck.order.AyaOrgaTycker#tyckParallel], so the methods are synchronized.
 public class ShapeFactory {
-  public @NotNull MutableMap<AnyDef, ShapeRecognition> discovered = MutableLinkedHashMap.of();
+  private final @NotNull MutableMap<AnyDef, ShapeRecognition> discovered = MutableLinkedHashMap.of();
 
-  public @NotNull ImmutableSeq<AyaShape.FindImpl> findImpl(@NotNull AyaShape shape) {
+  /// @return the shapes discovered so far, in the order of discovery
+  public synchronized @NotNull ImmutableSeq<Tuple2<AnyDef, ShapeRecognition>> snapshot() {
+    return discovered.toImmutableSeq();
+  }
+
+  public synchronized @NotNull ImmutableSeq<AyaShape.FindImpl> findImpl(@NotNull AyaShape shape) {
     return discovered.view()
       .map(AyaShape.FindImpl::new)
       .filter(t -> t.recog().shape() == shape)
       .toSeq();
   }
 
-  public @NotNull Option<ShapeRecognition> find(@Nullable AnyDef def) {
+  public synchronized @NotNull Option<ShapeRecognition> find(@Nullable AnyDef def) {
     if (def == null) return Option.none();
     return discovered.getOption(def);
   }
@@ -35,17 +43,31 @@ public class ShapeFactory {
     bonjour(TyckAnyDef.make(def), shape);
   }
 
-  public void bonjour(@NotNull AnyDef def, @NotNull ShapeRecognition shape) {
+  public synchronized void bonjour(@NotNull AnyDef def, @NotNull ShapeRecognition shape) {
     discovered.put(def, shape);
   }
 
   /** Discovery of shaped literals */
-  public void bonjour(@NotNull TyckDef def) {
+  public synchronized void bonjour(@NotNull TyckDef def) {
     for (var shape : AyaShape.values()) {
       new ShapeMatcher(ImmutableMap.from(discovered)).match(shape, def)
         .ifDefined(recog -> bonjour(def, recog));
     }
   }
 
-  public void importAll(@NotNull ShapeFactory other) { discovered.putAll(other.discovered); }
+  public void importAll(@NotNull ShapeFactory other) {
+    var shapes = other.snapshot();
+    synchronized (this) {
+      shapes.forEach(t -> discovered.put(t.component1(), t.component2()));
+    }
+  }
+
+  /// Forget the shapes discovered so far and use the ones of {@param other} instead
+  public void replaceWith(@NotNull ShapeFactory other) {
+    var shapes = other.snapshot();
+    synchronized (this) {
+      discovered.clear();
+      shapes.forEach(t -> discovered.put(t.component1(), t.component2()));
+    }
+  }
 }
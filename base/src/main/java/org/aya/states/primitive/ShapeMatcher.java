@@ -188,6 +188,8 @@ public record ShapeMatcher(
       case TermShape.NameCall call when call.args().isEmpty() && term instanceof FreeTerm(var ref) ->
         captures.resolve(call.name()) == ref;
       case TermShape.DeBruijn(var index) -> term instanceof LocalTerm(var jndex) && index == jndex;
+      case TermShape.App(var fun, var arg) when term instanceof AppTerm(var f, var a) ->
+        matchTerm(fun, f) && matchTerm(arg, a);
       case TermShape.Callable call when term instanceof Callable.Tele callable -> {
         // TODO: they should be matchable as well
         if (!(callable.ref() instanceof TyckAnyDef<?> ref)) yield false;
@@ -195,8 +197,10 @@ public record ShapeMatcher(
           case TermShape.NameCall nameCall -> captures.resolve(nameCall.name()) == ref.ref;
           case TermShape.ShapeCall shapeCall -> {
             if (callable.ref() instanceof TyckAnyDef<?> wrapper) {
-              yield captureIfMatches(shapeCall.name(), wrapper.ref, () ->
-                discovered.getOption(wrapper).map(x -> x.shape().codeShape()).getOrNull() == shapeCall.shape());
+              yield captureIfMatches(shapeCall.name(), wrapper.ref, () -> {
+                var found = discovered.getOption(wrapper).map(x -> x.shape().codeShape()).getOrNull();
+                return found != null && shapeCall.shapes().contains(found);
+              });
             }
 
             yield false;
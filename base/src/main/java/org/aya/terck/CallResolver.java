@@ -119,7 +119,8 @@ public record CallResolver(
       }
       case Pat.ShapedInt intPat -> switch (term) {
         // ice: by well-typedness, we don't need to compareShape
-        case IntegerTerm intTerm -> Relation.fromCompare(Integer.compare(intTerm.repr(), intPat.repr()));
+        // Patterns are always small
+        case IntegerTerm intTerm -> Relation.fromCompare(intTerm.isBig() ? 1 : Integer.compare(intTerm.repr(), intPat.repr()));
         case ConCall con -> compare(con, intPat.constructorForm());
         default -> compare(term, intPat.constructorForm());
       };
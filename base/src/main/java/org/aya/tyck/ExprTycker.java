@@ -43,6 +43,7 @@ import org.aya.util.position.WithPos;
 import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
 import java.util.Comparator;
 import java.util.function.Function;
 
@@ -128,7 +129,8 @@ public final class ExprTycker extends ScopedTycker {
       case Expr.LitInt(var end) -> {
         var ty = whnf(type);
         if (isInterval(ty)) {
-          if (end == 0 || end == 1) yield new Jdg.Default(end == 0 ? DimTerm.I0 : DimTerm.I1, ty);
+          if (end.equals(BigInteger.ZERO)) yield new Jdg.Default(DimTerm.I0, ty);
+          if (end.equals(BigInteger.ONE)) yield new Jdg.Default(DimTerm.I1, ty);
           else yield fail(expr.data(), new PrimError.BadInterval(expr.sourcePos(), end));
         }
         yield inheritFallbackUnify(ty, synthesize(expr), expr);
@@ -494,7 +496,7 @@ public final class ExprTycker extends ScopedTycker {
         }
         var match = defs.getFirst();
         var type = new DataCall((DataDefLike) match.def(), 0, ImmutableSeq.empty());
-        yield new Jdg.Default(new IntegerTerm(integer, match.recog(), type), type);
+        yield new Jdg.Default(new IntegerTerm(0, match.recog(), type).with(integer), type);
       }
       case Expr.Lift(WithPos(var innerPos, Expr.Ref ref), var level) ->
         checkApplication(ref, level, innerPos, ImmutableSeq.empty());
@@ -608,8 +610,8 @@ public final class ExprTycker extends ScopedTycker {
         var result = ArgsComputer.generateApplication(this, args, jdg).lift(lift);
         yield new DoCheckApp(result, headType);
       }
-      case CompiledVar(var content) -> new AppTycker<>(this, sourcePos, args.size(), lift, (params, k) ->
-        computeArgs(sourcePos, args, params, k)).checkCompiledApplication(content);
+      case CompiledVar content -> new AppTycker<>(this, sourcePos, args.size(), lift, (params, k) ->
+        computeArgs(sourcePos, args, params, k)).checkCompiledApplication(content.core());
       case DefVar<?, ?> defVar -> new AppTycker<>(this, sourcePos, args.size(), lift, (params, k) ->
         computeArgs(sourcePos, args, params, k)).checkDefApplication(defVar);
       default -> Panic.unreachable();
@@ -12,7 +12,9 @@ import org.aya.normalize.Finalizer;
 import org.aya.pretty.doc.Doc;
 import org.aya.states.GlobalInstanceSet;
 import org.aya.states.InstanceSet;
+import org.aya.states.TermTable;
 import org.aya.states.TyckState;
+import org.aya.states.WhnfCache;
 import org.aya.states.primitive.PrimFactory;
 import org.aya.states.primitive.ShapeFactory;
 import org.aya.syntax.concrete.Expr;
@@ -66,18 +68,23 @@ import static org.aya.tyck.tycker.TeleTycker.loadTele;
 public record StmtTycker(
   @NotNull SuppressingReporter reporter, @NotNull ModulePath fileModule,
   @NotNull ShapeFactory shapeFactory, @NotNull PrimFactory primFactory,
-  @NotNull GlobalInstanceSet globalInstances
+  @NotNull GlobalInstanceSet globalInstances,
+  @NotNull TyckOptions options, @Nullable TermTable termTable
 ) implements Problematic {
   private @NotNull ExprTycker mkTycker() {
     var tyckState = new TyckState(shapeFactory, primFactory);
+    tyckState.termTable = termTable;
+    if (options.whnfCacheSize() > 0) tyckState.whnfCache = new WhnfCache(options.whnfCacheSize());
     return new ExprTycker(tyckState, new InstanceSet(globalInstances), reporter, fileModule);
   }
   public StmtTycker(
     @NotNull Reporter reporter, @NotNull ModulePath fileModule,
     @NotNull ShapeFactory shapeFactory, @NotNull PrimFactory primFactory,
-    @NotNull GlobalInstanceSet globalInstances
+    @NotNull GlobalInstanceSet globalInstances,
+    @NotNull TyckOptions options, @Nullable TermTable termTable
   ) {
-    this(new SuppressingReporter(reporter), fileModule, shapeFactory, primFactory, globalInstances);
+    this(new SuppressingReporter(reporter), fileModule, shapeFactory, primFactory, globalInstances,
+      options, termTable);
   }
   public void suppress(@NotNull Decl decl) {
     var suppressInfo = decl.pragmaInfo.suppressWarn;
@@ -25,10 +25,10 @@ public interface TailRecChecker {
 
     public Term apply(@NotNull @Bound Term term, boolean tailPosition) {
       switch (term) {
-        case FnCall(var ref, int ulift, var args, _) -> {
-          if (ref instanceof FnDef.Delegate d && d.ref.equals(self.ref) && args.size() == self.telescope.size()) {
+        case FnCall call -> {
+          if (call.ref() instanceof FnDef.Delegate d && d.ref.equals(self.ref) && call.args().size() == self.telescope.size()) {
             if (!tailPosition) reporter.fail(new TailRecError(self.nameSourcePos()));
-            return new FnCall(ref, ulift, args, true);
+            return new FnCall(d, call.ulift(), call.args(), true);
           }
         }
         case LetTerm l -> {
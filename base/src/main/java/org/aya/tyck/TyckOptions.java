@@ -0,0 +1,14 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.tyck;
+
+import org.jetbrains.annotations.NotNull;
+
+/// Options of type checking a module, all of them are opt-in.
+///
+/// @param bodyJobs      the number of function bodies to check in parallel, see [org.aya.tyck.order.AyaOrgaTycker#tyckParallel]
+/// @param shareTerms    whether to share the closed terms of the definitions in a module, see [org.aya.states.TermTable]
+/// @param whnfCacheSize the capacity of the [org.aya.states.WhnfCache] of each state, 0 means no cache
+public record TyckOptions(int bodyJobs, boolean shareTerms, int whnfCacheSize) {
+  public static final @NotNull TyckOptions DEFAULT = new TyckOptions(1, false, 0);
+}
@@ -1,12 +1,16 @@
-// Copyright (c) 2020-2024 Tesla (Yinsen) Zhang.
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.tyck.order;
 
+import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableSet;
 import org.aya.generic.stmt.TyckOrder;
 import org.aya.resolve.ResolveInfo;
+import org.aya.syntax.concrete.stmt.decl.FnDecl;
+import org.aya.util.reporter.BufferReporter;
 import org.aya.util.terck.MutableGraph;
 import org.aya.util.tyck.OrgaTycker;
+import org.aya.util.tyck.SccScheduler;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -28,4 +32,55 @@ public record AyaOrgaTycker(
   @Override public @NotNull Iterable<TyckOrder> collectUsageOf(@NotNull TyckOrder failed) {
     return usageGraph.suc(failed);
   }
+
+  /// Same as calling [#tyckSCC] on each of {@param sccs} in order, but the consecutive SCCs of functions
+  /// are checked on {@param jobs} threads, each as soon as the SCCs it depends on are done.
+  /// Each of them is checked by its own [AyaSccTycker#fork] that reports to its own buffer,
+  /// but shares the module-level states, like the [org.aya.states.TermTable].
+  /// The problems and the well-typed definitions are committed in the order of {@param sccs}.
+  ///
+  /// The shapes are discovered as soon as a function is checked, because the functions using it need them.
+  /// A shape only depends on the definition and its dependencies, so they are the same as checking sequentially.
+  public void tyckParallel(@NotNull ImmutableSeq<ImmutableSeq<TyckOrder>> sccs, int jobs) {
+    var start = 0;
+    while (start < sccs.size()) {
+      var end = start;
+      while (end < sccs.size() && isFunction(sccs.get(end))) end++;
+      if (end - start <= 1) {
+        tyckSCC(sccs.get(start));
+        start++;
+      } else {
+        tyckFunctions(sccs.slice(start, end), jobs);
+        start = end;
+      }
+    }
+  }
+
+  /// Functions only read the signatures (and the bodies, when unfolding) of their dependencies,
+  /// while other definitions may change the shared states, like the constructors of a data type.
+  private static boolean isFunction(@NotNull ImmutableSeq<TyckOrder> scc) {
+    return scc.sizeEquals(1) && scc.getFirst().unit() instanceof FnDecl;
+  }
+
+  private void tyckFunctions(@NotNull ImmutableSeq<ImmutableSeq<TyckOrder>> sccs, int jobs) {
+    var resolveInfo = sccTycker.resolveInfo();
+    var buffers = new BufferReporter[sccs.size()];
+    var tyckers = new AyaSccTycker[sccs.size()];
+    new SccScheduler<TyckOrder>(jobs).run(sccs, order -> resolveInfo.depGraph().suc(order), (i, scc) -> {
+      var buffer = new BufferReporter();
+      buffers[i] = buffer;
+      var tycker = sccTycker.fork(buffer);
+      tyckers[i] = tycker;
+      ImmutableSeq<TyckOrder> pending;
+      synchronized (this) { pending = pending(scc); }
+      var failed = tycker.tyckSCC(pending);
+      synchronized (this) { skip(failed); }
+    }, i -> {
+      var reporter = sccTycker.reporter();
+      if (buffers[i] != null) reporter.reportAll(buffers[i].problems().view());
+      // Like a failed SCC in [AyaSccTycker#tyckSCC], so that the following ones are not considered failed
+      if (reporter.anyError()) reporter.clearCounts();
+      if (tyckers[i] != null) sccTycker.wellTyped().appendAll(tyckers[i].wellTyped());
+    });
+  }
 }
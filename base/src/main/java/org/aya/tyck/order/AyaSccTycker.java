@@ -10,6 +10,7 @@ import org.aya.generic.Modifier;
 import org.aya.generic.stmt.TyckOrder;
 import org.aya.generic.stmt.TyckUnit;
 import org.aya.resolve.ResolveInfo;
+import org.aya.states.TermTable;
 import org.aya.syntax.concrete.stmt.decl.Decl;
 import org.aya.syntax.concrete.stmt.decl.FnBody;
 import org.aya.syntax.concrete.stmt.decl.FnDecl;
@@ -21,6 +22,7 @@ import org.aya.syntax.ref.DefVar;
 import org.aya.terck.BadRecursion;
 import org.aya.terck.CallResolver;
 import org.aya.tyck.StmtTycker;
+import org.aya.tyck.TyckOptions;
 import org.aya.tyck.error.TyckOrderError;
 import org.aya.tyck.tycker.Problematic;
 import org.aya.util.Panic;
@@ -47,12 +49,29 @@ public record AyaSccTycker(
   @NotNull MutableList<@NotNull TyckDef> wellTyped
 ) implements SccTycker<TyckOrder, AyaSccTycker.SccTyckingFailed>, Problematic {
   public static @NotNull AyaSccTycker create(ResolveInfo info, @NotNull Reporter outReporter) {
+    return create(info, outReporter, TyckOptions.DEFAULT);
+  }
+
+  public static @NotNull AyaSccTycker
+  create(ResolveInfo info, @NotNull Reporter outReporter, @NotNull TyckOptions options) {
     var counting = CountingReporter.delegate(outReporter);
+    // The table of the module, shared by the forks of this tycker
+    var termTable = options.shareTerms() ? new TermTable() : null;
     var stmt = new StmtTycker(counting, info.modulePath(),
-      info.shapeFactory(), info.primFactory(), info.instancesSet());
+      info.shapeFactory(), info.primFactory(), info.instancesSet(), options, termTable);
     return new AyaSccTycker(stmt, counting, info, MutableList.create());
   }
 
+  /// A tycker of the same module that reports to {@param outReporter} and collects its own well-typed definitions.
+  /// The module-level states, namely the factories, the global instances, the options
+  /// and the [TermTable], are shared with this one.
+  public @NotNull AyaSccTycker fork(@NotNull Reporter outReporter) {
+    var counting = CountingReporter.delegate(outReporter);
+    var stmt = new StmtTycker(counting, tycker.fileModule(), tycker.shapeFactory(), tycker.primFactory(),
+      tycker.globalInstances(), tycker.options(), tycker.termTable());
+    return new AyaSccTycker(stmt, counting, resolveInfo, MutableList.create());
+  }
+
   @Override public @NotNull ImmutableSeq<TyckOrder>
   tyckSCC(@NotNull ImmutableSeq<TyckOrder> scc) throws SccTyckingFailed {
     try {
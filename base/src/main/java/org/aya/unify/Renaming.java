@@ -0,0 +1,156 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.unify;
+
+import kala.collection.Seq;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import org.aya.states.TyckState;
+import org.aya.syntax.core.annotation.Bound;
+import org.aya.syntax.core.annotation.Closed;
+import org.aya.syntax.core.term.*;
+import org.aya.syntax.core.term.call.MetaCall;
+import org.aya.syntax.ref.LocalVar;
+import org.aya.syntax.ref.MetaVar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/// Checks the right-hand side of a meta equation `?m x₀ … xₙ = rhs` and abstracts it over the spine in one traversal.
+/// This is [org.aya.prettier.FindUsage] (for scope checking, the occurs check and the overlapping variables)
+/// and [Term#bindTele] combined, where the spine is inverted into a hash map.
+///
+/// Another meta applied to a variable that is out of scope, like `?n y` where `y` is not in the spine,
+/// is _pruned_: we know the solution of `?n` cannot use its argument, so `?n` is solved with `λ _. ?n'`
+/// for a fresh meta `?n'` that does not take it. The solutions are only given in [#commit],
+/// so nothing is solved if the equation cannot be solved anyway.
+///
+/// @see Unifier#doSolveMeta
+final class Renaming {
+  /// @param kept which arguments of the pruned meta are kept
+  private record Pruning(@NotNull MetaVar fresh, boolean @NotNull [] kept) { }
+
+  private final @NotNull MetaVar target;
+  private final @NotNull TyckState state;
+  /// The index of the [LocalTerm] that each spine variable is abstracted into, see [Term#bindTele]
+  private final @NotNull HashMap<LocalVar, Integer> inverted = new HashMap<>();
+  /// The variables that occur more than once in the spine
+  private final @NotNull HashSet<LocalVar> overlap = new HashSet<>();
+  private final @NotNull MutableMap<MetaVar, Pruning> prunings = MutableMap.create();
+  /// Only the metas in the result are pruned, so we do not prune inside the definitions of let-bound variables
+  private int opaque = 0;
+  private boolean inMeta = false;
+
+  /// The number of the variables outside of the spine, used outside (`termUsage`) or inside (`metaUsage`) of a meta
+  public int termUsage = 0;
+  public int metaUsage = 0;
+  /// The number of uses of the variables in [#overlap]
+  public int overlapUsage = 0;
+  /// The number of occurrences of the [#target] meta
+  public int occurrences = 0;
+
+  Renaming(@NotNull MetaVar target, @NotNull TyckState state, @NotNull Seq<LocalVar> spine) {
+    this.target = target;
+    this.state = state;
+    var size = spine.size();
+    for (int i = 0; i < size; i++) {
+      var var = spine.get(i);
+      // the last occurrence wins, like in Term#bindTele
+      if (inverted.put(var, size - 1 - i) != null) overlap.add(var);
+    }
+  }
+
+  /// @return {@param term} abstracted over the spine, meaningful only if there is no usage or occurrence
+  public @Bound @NotNull Term apply(@Closed @NotNull Term term) { return term(term, 0); }
+
+  private @NotNull Term term(@NotNull Term term, int depth) {
+    var summary = ScopeSummary.cached(term);
+    if (summary != -1 && !ScopeSummary.hasFree(summary) && !ScopeSummary.hasMeta(summary)) return term;
+    return switch (term) {
+      case FreeTerm(var var) -> {
+        var index = inverted.get(var);
+        if (index == null) {
+          if (inMeta) metaUsage++;
+          else termUsage++;
+          yield term;
+        }
+        if (overlap.contains(var)) overlapUsage++;
+        yield new LocalTerm(depth + index);
+      }
+      case LetFreeTerm(var var, var definedAs) -> {
+        // The definition is checked, but not abstracted, see FreeTermLike#bindAllFrom
+        opaque++;
+        definedAs.map(t -> term(t, depth));
+        opaque--;
+        var index = inverted.get(var);
+        yield index == null ? term : new LocalTerm(depth + index);
+      }
+      case MetaCall call when call.ref() == target -> {
+        occurrences++;
+        yield term;
+      }
+      case MetaCall call -> metaCall(call, depth);
+      default -> term.descent(
+        t -> term(t, depth),
+        c -> c.descent(t -> term(t, depth + 1)));
+    };
+  }
+
+  private @NotNull Term metaCall(@NotNull MetaCall call, int depth) {
+    var before = inMeta;
+    inMeta = true;
+    var args = call.args();
+    var kept = new boolean[args.size()];
+    var renamed = MutableList.<Term>create();
+    var usage = metaUsage;
+    var outOfScope = false;
+    for (int i = 0; i < args.size(); i++) {
+      var arg = args.get(i);
+      kept[i] = !(arg instanceof FreeTerm(var var) && !inverted.containsKey(var));
+      if (!kept[i]) outOfScope = true;
+      renamed.append(kept[i] ? term(arg, depth) : arg);
+    }
+    inMeta = before;
+    var pruning = outOfScope ? pruning(call, kept, usage == metaUsage) : null;
+    if (pruning == null) {
+      // the arguments that are not kept are variables out of scope
+      for (var k : kept) if (!k) metaUsage++;
+      return call.update(renamed.toSeq());
+    }
+    return new MetaCall(pruning.fresh, keep(kept, renamed));
+  }
+
+  private static <T> @NotNull ImmutableSeq<T> keep(boolean @NotNull [] kept, @NotNull Seq<T> args) {
+    var result = MutableList.<T>create();
+    for (int i = 0; i < kept.length; i++) if (kept[i]) result.append(args.get(i));
+    return result.toSeq();
+  }
+
+  /// @param wellScoped whether the kept arguments are well-scoped, otherwise pruning does not help
+  private @Nullable Pruning pruning(@NotNull MetaCall call, boolean @NotNull [] kept, boolean wellScoped) {
+    var ref = call.ref();
+    if (!wellScoped || opaque > 0 || ref.isUser() || state.solutions.containsKey(ref)) return null;
+    // The requirements below do not refer to the arguments, and there are no extra arguments to abstract
+    if (!(ref.req() instanceof MetaVar.Misc || ref.req() instanceof MetaVar.PiDom)) return null;
+    if (call.args().size() != ref.ctxSize()) return null;
+    var existing = prunings.getOrNull(ref);
+    if (existing != null) return Arrays.equals(existing.kept, kept) ? existing : null;
+    var keptCount = keep(kept, call.args()).size();
+    var pruning = new Pruning(new MetaVar(ref.name(), ref.pos(), keptCount, ref.req(), false), kept);
+    prunings.put(ref, pruning);
+    return pruning;
+  }
+
+  /// Solves the pruned metas, call this only if the result of [#apply] is used as a solution.
+  public void commit() {
+    prunings.forEach((ref, pruning) -> {
+      var vars = ImmutableSeq.fill(ref.ctxSize(), _ -> LocalVar.generate("_"));
+      var args = keep(pruning.kept, vars).<Term>map(FreeTerm::new);
+      state.solve(ref, new MetaCall(pruning.fresh, args).bindTele(vars.view()));
+    });
+  }
+}
@@ -178,7 +178,7 @@ public abstract sealed class TermComparator extends AbstractTycker permits Unifi
       case Pair(DataCall lFn, DataCall rFn) -> compareCallApprox(lFn, rFn);
       case Pair(PrimCall lFn, PrimCall rFn) -> compareCallApprox(lFn, rFn);
       case Pair(IntegerTerm lInt, IntegerTerm rInt) ->
-        lInt.repr() == rInt.repr() ? RelDec.of(lInt.type()) : RelDec.no();
+        lInt.sameValue(rInt) ? RelDec.of(lInt.type()) : RelDec.no();
       case Pair(ConCallLike lCon, ConCallLike rCon) -> compareCallApprox(lCon, rCon);
       case Pair(MemberCall lMem, MemberCall rMem) -> {
         if (!lMem.ref().equals(rMem.ref())) yield RelDec.no();
@@ -441,8 +441,8 @@ public abstract sealed class TermComparator extends AbstractTycker permits Unifi
       case DimTerm l -> rhs instanceof DimTerm r && l == r ? RelDec.of(l) : RelDec.no();
       case MetaCall mCall -> solveMeta(mCall, rhs, null);
       // By typing invariant, they should have the same type, so no need to check for repr equality.
-      case IntegerTerm(var lepr, _, _, var ty) -> rhs instanceof IntegerTerm rInt && lepr == rInt.repr()
-        ? RelDec.of(ty)
+      case IntegerTerm lInt -> rhs instanceof IntegerTerm rInt && lInt.sameValue(rInt)
+        ? RelDec.of(lInt.type())
         : RelDec.no();
       case ListTerm list -> switch (rhs) {
         case ListTerm rist -> {
@@ -470,7 +470,7 @@ public abstract sealed class TermComparator extends AbstractTycker permits Unifi
         default -> RelDec.no();
       };
       case MetaLitTerm mlt -> switch (rhs) {
-        case IntegerTerm mrt -> compareMetaLitWithLit(mlt, mrt.repr(), mrt.type());
+        case IntegerTerm mrt -> compareMetaLitWithLit(mlt, mrt.value(), mrt.type());
         case ListTerm mrt -> compareMetaLitWithLit(mlt, mrt.repr(), mrt.type());
         case ConCall _ -> throw new UnsupportedOperationException("TODO (I have no time to implement this)");
         case MetaLitTerm mrt -> compareMetaLitWithLit(mlt, mrt.repr(), mrt.type());
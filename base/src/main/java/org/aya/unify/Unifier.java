@@ -3,8 +3,6 @@
 package org.aya.unify;
 
 import kala.collection.mutable.MutableArrayList;
-import kala.collection.mutable.MutableList;
-import org.aya.prettier.FindUsage;
 import org.aya.states.TyckState;
 import org.aya.syntax.core.annotation.Closed;
 import org.aya.syntax.core.term.FreeTerm;
@@ -50,12 +48,10 @@ public final class Unifier extends TermComparator {
     var spine = meta.args();
 
     var inverted = MutableArrayList.<LocalVar>create(spine.size());
-    var overlap = MutableList.<LocalVar>create();
     var wantToReturn = false;
     for (@Closed var arg : spine) {
       // TODO: apply uneta
       if (whnf(arg) instanceof FreeTerm(var var)) {
-        if (inverted.contains(var)) overlap.append(var);
         inverted.append(var);
       } else if (allowVague) {
         inverted.append(LocalVar.generate("_"));
@@ -93,10 +89,12 @@ public final class Unifier extends TermComparator {
       return RelDec.yes(returnType);
     }
 
+    var ref = meta.ref();
+    var renaming = new Renaming(ref, state, inverted);
+    var candidate = renaming.apply(rhs);
     // In this case, the solution may not be unique (see #608),
     // so we may delay its resolution to the end of the tycking when we disallow delayed unification.
-    var tmpRhs = rhs; // to get away with Java warning
-    if (!allowVague && overlap.anyMatch(var -> FindUsage.free(tmpRhs, var) > 0)) {
+    if (!allowVague && renaming.overlapUsage > 0) {
       if (allowDelay) {
         state.addEqn(createEqn(meta, rhs, returnType));
         return RelDec.yes(returnType);
@@ -109,16 +107,16 @@ public final class Unifier extends TermComparator {
     }
     // Now we are sure that the variables in overlap are all unused.
 
-    var findUsage = FindUsage.unfree(rhs, inverted);
-    if (findUsage.termUsage > 0) {
+    if (renaming.termUsage > 0) {
       rhs = fullNormalize(rhs);
-      findUsage = FindUsage.unfree(rhs, inverted);
+      renaming = new Renaming(ref, state, inverted);
+      candidate = renaming.apply(rhs);
     }
-    if (findUsage.termUsage > 0) {
+    if (renaming.termUsage > 0) {
       fail(new MetaVarError.BadlyScopedError(meta, rhs, inverted));
       return RelDec.no();
     }
-    if (findUsage.metaUsage > 0) {
+    if (renaming.metaUsage > 0) {
       if (allowDelay) {
         state.addEqn(createEqn(meta, rhs, returnType));
         return RelDec.yes(returnType);
@@ -127,12 +125,11 @@ public final class Unifier extends TermComparator {
         return RelDec.no();
       }
     }
-    var ref = meta.ref();
-    if (FindUsage.meta(rhs, ref) > 0) {
+    if (renaming.occurrences > 0) {
       fail(new MetaVarError.RecursionError(meta, rhs));
       return RelDec.no();
     }
-    var candidate = rhs.bindTele(inverted.view());
+    renaming.commit();
     // It might have extra arguments, in those cases we need to abstract them out.
     solve(ref, LamTerm.make(spine.size() - ref.ctxSize(), candidate));
     return RelDec.yes(returnType);
@@ -4,14 +4,22 @@ package org.aya.tyck;
 
 import kala.collection.immutable.ImmutableSeq;
 import kala.collection.immutable.primitive.ImmutableIntSeq;
+import org.aya.generic.term.SortKind;
 import org.aya.normalize.Normalizer;
 import org.aya.resolve.ResolveInfo;
 import org.aya.resolve.module.ModuleCallback;
+import org.aya.states.TermTable;
+import org.aya.states.WhnfCache;
 import org.aya.syntax.SyntaxTestUtil;
 import org.aya.syntax.core.def.*;
+import org.aya.syntax.core.repr.AyaShape;
+import org.aya.syntax.core.term.LocalTerm;
+import org.aya.syntax.core.term.SortTerm;
 import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.ConCall;
 import org.aya.syntax.core.term.call.DataCall;
 import org.aya.syntax.core.term.call.FnCall;
+import org.aya.syntax.core.term.call.RuleReducer;
 import org.aya.syntax.core.term.repr.IntegerTerm;
 import org.aya.syntax.core.term.repr.ListTerm;
 import org.aya.syntax.literate.CodeOptions.NormalizeMode;
@@ -24,11 +32,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Random;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /// Do NOT add simple test fixtures here.
 /// Find TyckTest.aya and add tests there.
@@ -93,6 +101,161 @@ public class TyckTest {
       normalizer.normalize(term, NormalizeMode.FULL));
   }
 
+  /// The definitions used by the tests below, which need the API.
+  /// Their behaviors are tested in TyckTest.aya.
+  private static @NotNull TyckResult natList() {
+    return tyck("""
+      open inductive Nat | O | S Nat
+      overlap def infixl + Nat Nat : Nat
+      | 0, b => b
+      | a, 0 => a
+      | S a, b => S (a + b)
+      | a, S b => S (a + b)
+      overlap def infixl * Nat Nat : Nat
+      | 0, n => 0
+      | m, 0 => 0
+      | S m, n => n + m * n
+      tighter +
+      def double Nat : Nat
+      | O => O
+      | S n => S (S (double n))
+      open inductive List (A : Type) | nil | infixr :< A (List A)
+      variable A B : Type
+      overlap def infixr ++ (xs ys : List A) : List A
+      | [ ], _ => ys
+      | _, [ ] => xs
+      | x :< xs', _ => x :< (xs' ++ ys)
+      def map (f : A -> B) (xs : List A) : List B elim xs
+      | [ ] => [ ]
+      | x :< xs' => f x :< map f xs'
+      def rev' (buf xs : List A) : List A elim xs
+      | [ ] => buf
+      | x :< xs' => rev' (x :< buf) xs'
+      """);
+  }
+
+  @Test public void whnfCache() {
+    var result = natList();
+    DataDefLike Nat = getDef(result.defs, "Nat");
+    ConDefLike O = getDef(result.defs, "O");
+    ConDefLike S = getDef(result.defs, "S");
+    FnDefLike doubleFn = getDef(result.defs, "double");
+    var NatCall = new DataCall(Nat, 0, ImmutableSeq.empty());
+    var term = new FnCall(doubleFn, 0, ImmutableSeq.of(new IntegerTerm(100, O, S, NatCall)));
+
+    var state = result.info.makeTyckState();
+    state.whnfCache = new WhnfCache();
+    var normalizer = new Normalizer(state);
+    var first = normalizer.apply(term);
+    assertSame(first, normalizer.apply(term));
+    assertTrue(state.whnfCache.hits() > 0);
+  }
+
+  @Test public void termTable() {
+    var result = natList();
+    ConDefLike O = getDef(result.defs, "O");
+    ConDefLike S = getDef(result.defs, "S");
+    FnDefLike doubleFn = getDef(result.defs, "double");
+    Function<Term, Term> mkTerm = zero -> new FnCall(doubleFn, 0, ImmutableSeq.of(
+      new ConCall(S, ImmutableSeq.empty(), 0, ImmutableSeq.of(zero))));
+
+    var table = new TermTable();
+    var first = table.intern(mkTerm.apply(new ConCall(O)));
+    var second = table.intern(mkTerm.apply(new ConCall(O)));
+    assertNotSame(mkTerm.apply(new ConCall(O)), mkTerm.apply(new ConCall(O)));
+    assertSame(first, second);
+    assertEquals(3, table.hits());
+    // Terms with loose indices are never shared
+    var open = mkTerm.apply(new LocalTerm(0));
+    assertNotSame(table.intern(open), table.intern(mkTerm.apply(new LocalTerm(0))));
+    // Sorts are keyed by their values
+    assertSame(SortTerm.Set1, table.intern(SortTerm.Set1));
+    assertSame(SortTerm.Set1, table.intern(new SortTerm(SortKind.Set, 1)));
+  }
+
+  /// The bodies checked in parallel share the [TermTable] of the module
+  @Test public void parallelTermTable() {
+    var result = tyck("""
+      open inductive Tree | leaf | node Tree Tree
+      def t1 : Tree => node leaf (node leaf leaf)
+      def t2 : Tree => node leaf (node leaf leaf)
+      def t3 : Tree => node (node leaf leaf) leaf
+      """, new TyckOptions(4, true, 0));
+    Function<String, ConCall> body = name ->
+      assertInstanceOf(ConCall.class, ((FnDef) result.find(name)).body().getLeftValue());
+    assertSame(body.apply("t1"), body.apply("t2"));
+    assertSame(body.apply("t1").conArgs().get(1), body.apply("t3").conArgs().get(0));
+  }
+
+  @Test public void nativeShapes() {
+    var result = natList();
+    var shapes = result.info.shapeFactory();
+    assertEquals(AyaShape.TIMES_SHAPE, shapes.find(getDef(result.defs, "*")).get().shape());
+    assertEquals(AyaShape.APPEND_SHAPE, shapes.find(getDef(result.defs, "++")).get().shape());
+    assertEquals(AyaShape.MAP_SHAPE, shapes.find(getDef(result.defs, "map")).get().shape());
+    assertEquals(AyaShape.REV_ONTO_SHAPE, shapes.find(getDef(result.defs, "rev'")).get().shape());
+  }
+
+  @Test public void clauseIndex() {
+    var result = tyck("""
+      open inductive Color | red | green | blue
+      def pick Color Color : Color
+      | red, _ => red
+      | c, blue => blue
+      | green, green => green
+      | _, _ => red
+      """);
+    ConDefLike red = getDef(result.defs, "red");
+    ConDefLike green = getDef(result.defs, "green");
+    ConDefLike blue = getDef(result.defs, "blue");
+    var pick = (FnDef) result.find("pick");
+    var index = pick.body().getRightValue().index();
+    assertEquals(0, index.column());
+    assertSame(index, pick.body().getRightValue().index());
+    Function<ImmutableSeq<Term>, ImmutableSeq<Integer>> candidates = args ->
+      index.candidates(args).mapToObj(i -> i);
+    var normalizer = new Normalizer(result.info.makeTyckState());
+    BiFunction<ConDefLike, ConDefLike, ConDefLike> unfold = (x, y) -> assertInstanceOf(ConCall.class,
+      normalizer.apply(new FnCall(TyckAnyDef.make(pick), 0, ImmutableSeq.of(new ConCall(x), new ConCall(y))))).ref();
+
+    // A constructor hit keeps the clauses of that constructor and the wildcards, in order
+    assertEquals(ImmutableSeq.of(1, 2, 3), candidates.apply(ImmutableSeq.of(new ConCall(green), new ConCall(green))));
+    assertEquals(green, unfold.apply(green, green));
+    assertEquals(blue, unfold.apply(green, blue));
+    // A constructor with no clause of its own falls back to the wildcards
+    assertEquals(ImmutableSeq.of(1, 3), candidates.apply(ImmutableSeq.of(new ConCall(blue), new ConCall(green))));
+    assertEquals(red, unfold.apply(blue, green));
+    assertEquals(blue, unfold.apply(blue, blue));
+    // Both `red, _` and `c, blue` match, the first one wins
+    assertEquals(ImmutableSeq.of(0, 1, 3), candidates.apply(ImmutableSeq.of(new ConCall(red), new ConCall(blue))));
+    assertEquals(red, unfold.apply(red, blue));
+    // Arguments not headed by a constructor try every clause
+    assertEquals(ImmutableSeq.of(0, 1, 2, 3), candidates.apply(ImmutableSeq.of(new LocalTerm(0), new ConCall(red))));
+  }
+
+  /// Profiling case, the list is reversed natively
+  @Test public void nativeRevLarge() {
+    var result = natList();
+    DataDefLike Nat = getDef(result.defs, "Nat");
+    ConDefLike O = getDef(result.defs, "O");
+    ConDefLike S = getDef(result.defs, "S");
+    DataDefLike List = getDef(result.defs, "List");
+    ConDefLike nil = getDef(result.defs, "nil");
+    ConDefLike cons = getDef(result.defs, ":<");
+    FnDefLike rev = getDef(result.defs, "rev'");
+
+    var NatCall = new DataCall(Nat, 0, ImmutableSeq.empty());
+    var ListNatCall = new DataCall(List, 0, ImmutableSeq.of(NatCall));
+    var largeList = new ListTerm(ImmutableSeq.fill(100000, i -> new IntegerTerm(i, O, S, NatCall)), nil, cons, ListNatCall);
+    var emptyList = new ListTerm(ImmutableSeq.empty(), nil, cons, ListNatCall);
+    var term = new RuleReducer.Fn(AyaShape.ofFn(rev, AyaShape.REV_ONTO_SHAPE), 0,
+      ImmutableSeq.of(NatCall, emptyList, largeList));
+    var reversed = new Normalizer(result.info.makeTyckState()).normalize(term, NormalizeMode.FULL);
+    var repr = assertInstanceOf(ListTerm.class, reversed).repr();
+    assertEquals(100000, repr.size());
+    assertEquals(new IntegerTerm(99999, O, S, NatCall), repr.getFirst());
+  }
+
   public record TyckResult(@NotNull ImmutableSeq<TyckDef> defs, @NotNull ResolveInfo info) {
     public TyckDef find(@NotNull String name) {
       return defs.find(x -> x.ref().name().equals(name)).get();
@@ -100,13 +263,17 @@ public class TyckTest {
   }
 
   public static TyckResult tyck(@Language("Aya") @NotNull String code) {
+    return tyck(code, TyckOptions.DEFAULT);
+  }
+
+  public static TyckResult tyck(@Language("Aya") @NotNull String code, @NotNull TyckOptions options) {
     var moduleLoader = SyntaxTestUtil.moduleLoader();
     var callback = new ModuleCallback<RuntimeException>() {
       ImmutableSeq<TyckDef> ok;
       @Override
       public void onModuleTycked(@NotNull ResolveInfo resolveInfo, @NotNull ImmutableSeq<TyckDef> defs) { ok = defs; }
     };
-    var info = moduleLoader.tyckModule(moduleLoader.resolve(SyntaxTestUtil.parse(code)), callback);
+    var info = moduleLoader.tyckModule(moduleLoader.resolve(SyntaxTestUtil.parse(code)), options, callback);
     return new TyckResult(callback.ok, info);
   }
 }
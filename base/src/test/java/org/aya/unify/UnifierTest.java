@@ -0,0 +1,101 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.unify;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.generic.term.DTKind;
+import org.aya.states.TyckState;
+import org.aya.states.primitive.PrimFactory;
+import org.aya.states.primitive.ShapeFactory;
+import org.aya.syntax.core.Closure;
+import org.aya.syntax.core.term.DepTypeTerm;
+import org.aya.syntax.core.term.FreeTerm;
+import org.aya.syntax.core.term.SortTerm;
+import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.MetaCall;
+import org.aya.syntax.ref.LocalVar;
+import org.aya.syntax.ref.MapLocalCtx;
+import org.aya.syntax.ref.MetaVar;
+import org.aya.tyck.error.MetaVarError;
+import org.aya.util.Decision;
+import org.aya.util.Ordering;
+import org.aya.util.position.SourcePos;
+import org.aya.util.reporter.BufferReporter;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Meta solving problems that cannot be written in the surface syntax precisely,
+/// in the context `x y : Type`.
+public class UnifierTest {
+  private final @NotNull TyckState state = new TyckState(new ShapeFactory(), new PrimFactory());
+  private final @NotNull BufferReporter reporter = new BufferReporter();
+  private final @NotNull FreeTerm x = new FreeTerm(LocalVar.generate("x"));
+  private final @NotNull FreeTerm y = new FreeTerm(LocalVar.generate("y"));
+
+  private @NotNull Unifier unifier(boolean allowDelay) {
+    var ctx = new MapLocalCtx();
+    ctx.put(x.name(), SortTerm.Type0);
+    ctx.put(y.name(), SortTerm.Type0);
+    return new Unifier(state, ctx, reporter, SourcePos.NONE, Ordering.Eq, allowDelay);
+  }
+
+  private static @NotNull MetaVar meta(@NotNull String name, int ctxSize) {
+    return new MetaVar(name, SourcePos.NONE, ctxSize, MetaVar.Misc.IsType, false);
+  }
+
+  private static @NotNull Term arrow(@NotNull Term dom, @NotNull Term cod) {
+    return new DepTypeTerm(DTKind.Pi, dom, Closure.mkConst(cod));
+  }
+
+  /// `?m x = ?n x y -> Type`, where `y` is out of the scope of `?m`, so `?n` is pruned to not take it.
+  /// Without pruning, this needs to be postponed, which is not allowed here.
+  @Test public void prune() {
+    var m = meta("m", 1);
+    var n = meta("n", 2);
+    var rhs = arrow(new MetaCall(n, ImmutableSeq.of(x, y)), SortTerm.Type0);
+    assertEquals(Decision.YES, unifier(false).compare(new MetaCall(m, ImmutableSeq.of(x)), rhs, null));
+    assertTrue(state.solutions.containsKey(m));
+    assertTrue(state.solutions.containsKey(n));
+
+    // The meta that `?n` is pruned to can still be solved
+    assertEquals(Decision.YES, unifier(false).compare(new MetaCall(n, ImmutableSeq.of(x, y)), x, null));
+    assertEquals(Decision.YES, unifier(false).compare(new MetaCall(m, ImmutableSeq.of(x)), arrow(x, SortTerm.Type0), null));
+    assertTrue(reporter.problems().isEmpty());
+  }
+
+  /// `?m x = ?n x y -> y`: `?n` is pruned before `y` is found out of scope,
+  /// but the equation fails, so neither `?m` nor `?n` is solved.
+  @Test public void pruneThenFail() {
+    var m = meta("m", 1);
+    var n = meta("n", 2);
+    var rhs = arrow(new MetaCall(n, ImmutableSeq.of(x, y)), y);
+    assertEquals(Decision.NO, unifier(true).compare(new MetaCall(m, ImmutableSeq.of(x)), rhs, null));
+    assertFalse(state.solutions.containsKey(m));
+    assertFalse(state.solutions.containsKey(n));
+    assertTrue(reporter.problems().anyMatch(p -> p instanceof MetaVarError.BadlyScopedError));
+  }
+
+  /// `?m x x = ?n x` is postponed because `x` occurs twice in the spine, so it is blocked by `?m`.
+  /// Once `?m` is solved by `?m x y = x`, the equation is woken and solves `?n`.
+  @Test public void wakeup() {
+    var m = meta("m", 2);
+    var n = meta("n", 1);
+    var lhs = new MetaCall(m, ImmutableSeq.of(x, x));
+    assertEquals(Decision.YES, unifier(true).compare(lhs, new MetaCall(n, ImmutableSeq.of(x)), null));
+    assertFalse(state.solutions.containsKey(m));
+    assertFalse(state.solutions.containsKey(n));
+
+    assertEquals(Decision.YES, unifier(false).compare(new MetaCall(m, ImmutableSeq.of(x, y)), x, null));
+    assertFalse(state.solutions.containsKey(n));
+    assertEquals(1, state.postponedCount());
+    assertEquals(0, state.wokenCount());
+    state.solveMetas(reporter);
+    assertTrue(state.solutions.containsKey(n));
+    assertTrue(reporter.problems().isEmpty());
+    // Only the blocked equation is checked again, and it need not be retried with vague solutions
+    assertEquals(1, state.wokenCount());
+    assertEquals(0, state.retriedCount());
+  }
+}
@@ -16,6 +16,7 @@ import org.aya.cli.utils.CliEnums;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.producer.flcl.FlclParser;
 import org.aya.states.primitive.PrimFactory;
+import org.aya.tyck.TyckOptions;
 import org.aya.util.FileUtil;
 import org.aya.util.position.SourceFile;
 import org.aya.util.position.SourceFileLocator;
@@ -94,7 +95,7 @@ public class Main extends MainArgs implements Callable<Integer> {
     var flags = new CompilerFlags(message, interruptedTrace,
       compile.isRemake, pretty,
       modulePaths().view().map(Paths::get),
-      outputPath);
+      outputPath, compile.jobs, new TyckOptions(compile.bodyJobs, compile.shareTerms, compile.whnfCache));
 
     if (compile.isLibrary || compile.isRemake || compile.isNoCode) {
       var advisor = compile.isNoCode ? CompilerAdvisor.inMemory() : CompilerAdvisor.onDisk();
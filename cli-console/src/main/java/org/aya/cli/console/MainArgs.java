@@ -41,6 +41,18 @@ public class MainArgs {
     @Option(names = {"--no-code"}, description =
       "Treat input file as a library root (no outputs will be saved to disk)")
     public boolean isNoCode;
+    @Option(names = {"--jobs", "-j"}, defaultValue = "1", description =
+      "Number of modules to type check or pretty print in parallel when compiling libraries", paramLabel = "N")
+    public int jobs;
+    @Option(names = {"--body-jobs"}, defaultValue = "1", description =
+      "Number of function bodies in a module to type check in parallel when compiling libraries", paramLabel = "N")
+    public int bodyJobs;
+    @Option(names = {"--share-terms"}, description =
+      "Share structurally equal closed terms of the type checked definitions to save memory")
+    public boolean shareTerms;
+    @Option(names = {"--whnf-cache"}, defaultValue = "0", description =
+      "Number of head normal forms to memoize while type checking a definition, 0 disables the cache", paramLabel = "N")
+    public int whnfCache;
   }
 
   public static class PlctAction {
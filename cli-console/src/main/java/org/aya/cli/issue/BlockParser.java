@@ -95,7 +95,7 @@ public class BlockParser<T extends BlockParser.Kind> {
       // not yet close
       reporter.report(new BlockParserProblem.UnclosedBlock(
         // blockBeginOffset is at the end of the last begin mark, we should use the begin offset of the last begin mark
-        SourcePos.of(TextRange.create(blockBeginOffset, source.sourceCode().length()), source, false),
+        SourcePos.of(TextRange.create(blockBeginOffset, source.sourceCode().length()), source),
         lastBeginMark.toString()
       ));
     }
@@ -104,6 +104,6 @@ public class BlockParser<T extends BlockParser.Kind> {
   }
 
   public static @NotNull SourcePos of(@NotNull SourceFile file, @NotNull Matcher matcher) {
-    return SourcePos.of(TextRange.create(matcher.start(), matcher.end()), file, true);
+    return SourcePos.of(TextRange.create(matcher.start(), matcher.end()), file);
   }
 }
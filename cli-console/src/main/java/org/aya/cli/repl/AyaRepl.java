@@ -113,6 +113,7 @@ public abstract class AyaRepl implements Closeable, Runnable, Repl {
     replCompiler = new ReplCompiler(modulePaths, new AnsiReporter(true,
       () -> config.enableUnicode, () -> config.literatePrettier.prettierOptions,
       Problem.Severity.INFO, this::println, this::errPrintln), null);
+    replCompiler.jit = config.jit;
     if (config.loadPrelude) replCompiler.loadPreludeIfPossible();
   }
 
@@ -3,7 +3,6 @@
 package org.aya.cli.repl;
 
 import kala.collection.immutable.ImmutableSeq;
-import kala.collection.mutable.MutableList;
 import kala.control.Either;
 import org.aya.cli.render.RenderOptions;
 import org.aya.compiler.morphism.ir.BlockSimplifier;
@@ -112,12 +111,11 @@ public interface ReplCommands {
 
   @NotNull Command SHOW_SHAPES = new Command(ImmutableSeq.of("debug-show-shapes"), "Show recognized shapes") {
     @Entry public @NotNull Command.Result execute(@NotNull AyaRepl repl) {
-      var discovered = repl.replCompiler.getShapeFactory().discovered;
-      return new Result(Output.stdout(Doc.vcat(discovered.mapTo(MutableList.create(),
-        (def, recog) ->
-          Doc.sep(BasePrettier.refVar(def),
-            Doc.symbol("=>"),
-            Doc.plain(recog.shape().name()))))), true);
+      var discovered = repl.replCompiler.getShapeFactory().snapshot();
+      return new Result(Output.stdout(Doc.vcat(discovered.map(t ->
+        Doc.sep(BasePrettier.refVar(t.component1()),
+          Doc.symbol("=>"),
+          Doc.plain(t.component2().shape().name()))))), true);
     }
   };
 
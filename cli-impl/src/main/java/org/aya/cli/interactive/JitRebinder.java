@@ -0,0 +1,98 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.cli.interactive;
+
+import org.aya.generic.TermVisitor;
+import org.aya.generic.stmt.Shaped;
+import org.aya.syntax.compile.JitCon;
+import org.aya.syntax.compile.JitData;
+import org.aya.syntax.compile.JitDef;
+import org.aya.syntax.compile.JitFn;
+import org.aya.syntax.core.def.AnyDef;
+import org.aya.syntax.core.def.ConDefLike;
+import org.aya.syntax.core.def.FnDefLike;
+import org.aya.syntax.core.def.TyckAnyDef;
+import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.*;
+import org.aya.syntax.core.term.repr.IntegerOps;
+import org.aya.syntax.core.term.repr.IntegerTerm;
+import org.aya.syntax.core.term.repr.ListOps;
+import org.aya.syntax.core.term.repr.ListTerm;
+import org.aya.syntax.ref.DefVar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/// Replaces the references to the definitions compiled by [ReplCompiler#jit] with the compiled ones.
+/// The compiled code compares constructors by identity, so it must not be given
+/// a term that refers to the type-checked version of a compiled constructor.
+final class JitRebinder implements TermVisitor.Traverse {
+  private final @NotNull Map<DefVar<?, ?>, JitDef> compiled;
+  private boolean incomplete = false;
+
+  private JitRebinder(@NotNull Map<DefVar<?, ?>, JitDef> compiled) { this.compiled = compiled; }
+
+  /// @return null if {@param term} refers to a compiled definition in a way that is not handled here
+  public static @Nullable Term rebind(@NotNull Map<DefVar<?, ?>, JitDef> compiled, @NotNull Term term) {
+    if (compiled.isEmpty()) return term;
+    var rebinder = new JitRebinder(compiled);
+    var result = rebinder.term(term);
+    return rebinder.incomplete ? null : result;
+  }
+
+  private @Nullable JitDef lookup(@NotNull AnyDef def) {
+    return def instanceof TyckAnyDef<?> tyck ? compiled.get(tyck.ref) : null;
+  }
+
+  private @NotNull ConDefLike con(@NotNull ConDefLike con) {
+    return lookup(con) instanceof JitCon jit ? jit : con;
+  }
+
+  @Override public @NotNull Term term(@NotNull Term term) {
+    return switch (term.descent(this)) {
+      case FnCall call when lookup(call.ref()) instanceof JitFn fn ->
+        new FnCall(fn, call.ulift(), call.args(), call.tailCall());
+      case DataCall call when lookup(call.ref()) instanceof JitData data ->
+        new DataCall(data, call.ulift(), call.args());
+      case ConCall call when lookup(call.ref()) instanceof JitCon con ->
+        new ConCall(new ConCallLike.Head(con, call.head().ulift(), call.head().ownerArgs()), call.conArgs());
+      // [IntegerTerm#descent] doesn't visit the type
+      case IntegerTerm lit -> new IntegerTerm(lit.repr(), lit.big(),
+        con(lit.zero()), con(lit.suc()), (DataCall) term(lit.type()));
+      case ListTerm list -> new ListTerm(list.repr(), con(list.nil()), con(list.cons()), (DataCall) term(list.type()));
+      case RuleReducer.Fn fn -> new RuleReducer.Fn(fnRule(fn.rule()), fn.ulift(), fn.args());
+      case RuleReducer.Con con -> new RuleReducer.Con(conRule(con.rule()), con.ulift(), con.ownerArgs(), con.conArgs());
+      case Callable.Tele call when lookup(call.ref()) != null -> {
+        incomplete = true;
+        yield call;
+      }
+      case Term other -> other;
+    };
+  }
+
+  private @NotNull Shaped.Applicable<FnDefLike> fnRule(@NotNull Shaped.Applicable<FnDefLike> rule) {
+    return switch (rule) {
+      case IntegerOps.FnRule(var ref, var kind) when lookup(ref) instanceof JitFn fn -> new IntegerOps.FnRule(fn, kind);
+      case ListOps.FnRule(var ref, var kind) when lookup(ref) instanceof JitFn fn -> new ListOps.FnRule(fn, kind);
+      default -> {
+        if (lookup(rule.ref()) != null) incomplete = true;
+        yield rule;
+      }
+    };
+  }
+
+  private @NotNull Shaped.Applicable<ConDefLike> conRule(@NotNull Shaped.Applicable<ConDefLike> rule) {
+    return switch (rule) {
+      // [IntegerOps.ConRule#descent] doesn't visit zero
+      case IntegerOps.ConRule(var ref, var zero) when lookup(ref) instanceof JitCon con ->
+        new IntegerOps.ConRule(con, (IntegerTerm) term(zero));
+      case ListOps.ConRule(var ref, var empty) when lookup(ref) instanceof JitCon con ->
+        new ListOps.ConRule(con, empty);
+      default -> {
+        if (lookup(rule.ref()) != null) incomplete = true;
+        yield rule;
+      }
+    };
+  }
+}
@@ -2,18 +2,24 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.cli.interactive;
 
+import kala.collection.immutable.ImmutableMap;
 import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
 import kala.control.Either;
 import kala.function.CheckedFunction;
 import kala.value.MutableValue;
 import org.aya.cli.library.LibraryCompiler;
 import org.aya.cli.library.incremental.CompilerAdvisor;
+import org.aya.cli.library.incremental.DiskCompilerAdvisor;
 import org.aya.cli.library.json.LibraryConfigData;
 import org.aya.cli.library.source.LibraryOwner;
 import org.aya.cli.single.CompilerFlags;
 import org.aya.cli.single.SingleAyaFile;
 import org.aya.cli.utils.LiterateData;
+import org.aya.compiler.CompiledModule;
+import org.aya.compiler.MemoryClassLoader;
+import org.aya.compiler.serializers.ModuleSerializer;
 import org.aya.generic.InterruptException;
 import org.aya.normalize.Normalizer;
 import org.aya.producer.AyaParserImpl;
@@ -36,13 +42,19 @@ import org.aya.states.primitive.ShapeFactory;
 import org.aya.syntax.GenericAyaFile;
 import org.aya.syntax.concrete.Expr;
 import org.aya.syntax.concrete.stmt.Stmt;
+import org.aya.syntax.compile.JitDef;
 import org.aya.syntax.core.Jdg;
+import org.aya.syntax.core.def.DataDef;
 import org.aya.syntax.core.def.PrimDef;
+import org.aya.syntax.core.def.TopLevelDef;
 import org.aya.syntax.core.def.TyckDef;
 import org.aya.syntax.core.term.Term;
 import org.aya.syntax.literate.CodeOptions.NormalizeMode;
 import org.aya.syntax.ref.AnyVar;
+import org.aya.syntax.ref.DefVar;
 import org.aya.syntax.ref.ModulePath;
+import org.aya.syntax.ref.QName;
+import org.aya.syntax.ref.QPath;
 import org.aya.tyck.ExprTycker;
 import org.aya.tyck.tycker.TeleTycker;
 import org.aya.util.position.SourceFileLocator;
@@ -51,10 +63,13 @@ import org.aya.util.position.WithPos;
 import org.aya.util.reporter.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class ReplCompiler {
   public final @NotNull ClearableReporter reporter;
@@ -68,6 +83,15 @@ public class ReplCompiler {
   private final @NotNull AyaBinOpSet opSet;
   private final @NotNull TyckState tcState;
   private final @NotNull GlobalInstanceSet replInstances;
+  /// Compile the new definitions to bytecode in memory, and normalize with the compiled code,
+  /// see [#jitCompile]
+  public boolean jit = false;
+  /// The loaders of the classes compiled by [#jitCompile], by class name
+  private @NotNull ImmutableMap<String, ClassLoader> jitClasses = ImmutableMap.empty();
+  /// The loaders of the compiled libraries, see [#loadLibrary]
+  private final @NotNull MutableList<ClassLoader> jitFallbacks = MutableList.create();
+  /// Weak, so that the compiled code of a redefined definition can be unloaded
+  private final @NotNull Map<DefVar<?, ?>, JitDef> jitDefs = new WeakHashMap<>();
 
   public ReplCompiler(
     @NotNull ImmutableSeq<Path> modulePaths,
@@ -108,8 +132,10 @@ public class ReplCompiler {
   private void loadLibrary(@NotNull Path libraryRoot) throws IOException {
     var flags = new CompilerFlags(CompilerFlags.Message.EMOJI, false, true, null, modulePaths.view(), null);
     try {
-      var compiler = LibraryCompiler.newCompiler(tcState.primFactory, reporter, flags, CompilerAdvisor.onDisk(), libraryRoot);
+      var advisor = CompilerAdvisor.onDisk();
+      var compiler = LibraryCompiler.newCompiler(tcState.primFactory, reporter, flags, advisor, libraryRoot);
       compiler.start();
+      if (advisor instanceof DiskCompilerAdvisor disk) jitFallbacks.append(disk.classLoader());
       importModule(compiler.libraryOwner());
     } catch (LibraryConfigData.BadConfig bad) {
       reporter.reportString("Cannot load malformed library: " + bad.getMessage(), Problem.Severity.ERROR);
@@ -157,11 +183,12 @@ public class ReplCompiler {
           var isOk = loader.resolveModule(resolveInfo, program, loader);
           if (!isOk) return Either.left(ImmutableSeq.empty());
 
-          resolveInfo.shapeFactory().discovered = shapeFactory.fork().discovered;
+          resolveInfo.shapeFactory().replaceWith(shapeFactory.fork());
           loader.tyckModule(resolveInfo, ((_, defs) -> newDefs.set(defs)));
           if (reporter.anyError()) return Either.left(ImmutableSeq.empty());
           context.merge();
           shapeFactory.merge();
+          if (jit) jitCompile(resolveInfo, newDefs.get());
           return Either.left(newDefs.get());
         },
         expr -> {
@@ -179,6 +206,39 @@ public class ReplCompiler {
     }
   }
 
+  /// Compiles {@param defs} into a fresh [MemoryClassLoader], so that the classes of the old definitions,
+  /// when they are all redefined, can be unloaded.
+  /// The definitions are still interpreted if they refer to something that is not compiled,
+  /// like the ones from a module loaded from source.
+  private void jitCompile(@NotNull ResolveInfo resolveInfo, @NotNull ImmutableSeq<TyckDef> defs) {
+    var topLevel = defs.filterIsInstance(TopLevelDef.class);
+    if (topLevel.isEmpty()) return;
+    var output = new ModuleSerializer(resolveInfo.shapeFactory())
+      .serialize(new ModuleSerializer.ModuleResult(QPath.fileLevel(resolveInfo.modulePath()), topLevel));
+    var loader = new MemoryClassLoader(output, jitClasses, jitFallbacks.toSeq(), ReplCompiler.class.getClassLoader());
+    var missing = loader.missingClass();
+    if (missing != null) {
+      reporter.reportString("Not compiled because " + missing + " is not available, the definitions are interpreted",
+        Problem.Severity.INFO);
+      return;
+    }
+    var newClasses = MutableMap.from(jitClasses);
+    loader.classNames().forEach(name -> newClasses.put(name, loader));
+    jitClasses = ImmutableMap.from(newClasses);
+    var state = new CompiledModule.DeState(loader);
+    for (var def : topLevel) {
+      jitDefs.put(def.ref(), state.resolve(new QName(def.ref())));
+      if (def instanceof DataDef data) data.body().forEach(con ->
+        jitDefs.put(con.ref(), state.resolve(new QName(con.ref()))));
+    }
+  }
+
+  /// @return the loader of the compiled code of {@param ref}, or null if it is not compiled
+  @VisibleForTesting public @Nullable ClassLoader jitLoader(@NotNull DefVar<?, ?> ref) {
+    var def = jitDefs.get(ref);
+    return def == null ? null : def.getClass().getClassLoader();
+  }
+
   private @NotNull ResolveInfo makeResolveInfo(@NotNull ModuleContext ctx) {
     var resolveInfo = new ResolveInfo(ctx, tcState.primFactory, tcState.shapeFactory, opSet);
     imports.forEach(ii -> resolveInfo.imports().put(
@@ -230,7 +290,12 @@ public class ReplCompiler {
       var tycker = new TeleTycker.InlineCode(exprTycker);
       jdg = tycker.checkInlineCode(desugar.params(), desugar.expr());
     }
-    return new Normalizer(tcState).normalize(isType ? jdg.type() : jdg.wellTyped(), mode);
+    var term = isType ? jdg.type() : jdg.wellTyped();
+    if (jit && !isType) {
+      var compiled = JitRebinder.rebind(jitDefs, term);
+      if (compiled != null) term = compiled;
+    }
+    return new Normalizer(tcState).normalize(term, mode);
   }
 
   public @NotNull ReplContext getContext() { return context; }
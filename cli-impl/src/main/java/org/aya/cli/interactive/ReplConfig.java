@@ -25,6 +25,8 @@ public class ReplConfig implements AutoCloseable {
   /** Disables welcome message, echoing info, etc. */
   public boolean quiet = false;
   public boolean loadPrelude = true;
+  /** Compiles the definitions to bytecode, see {@link ReplCompiler#jit} */
+  public boolean jit = false;
 
   public ReplConfig(@NotNull Option<Path> file) {
     this.configFile = file;
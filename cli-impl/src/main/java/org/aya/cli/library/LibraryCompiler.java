@@ -28,10 +28,12 @@ import org.aya.syntax.concrete.stmt.Stmt;
 import org.aya.syntax.concrete.stmt.decl.PrimDecl;
 import org.aya.util.Panic;
 import org.aya.util.TimeUtil;
+import org.aya.util.reporter.BufferReporter;
 import org.aya.util.reporter.CountingReporter;
 import org.aya.util.reporter.Reporter;
 import org.aya.util.terck.MutableGraph;
 import org.aya.util.tyck.OrgaTycker;
+import org.aya.util.tyck.SccScheduler;
 import org.aya.util.tyck.SccTycker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -54,7 +56,7 @@ public class LibraryCompiler {
     var counting = CountingReporter.delegate(reporter);
     var tyckCounting = CountingReporter.delegate(counting);
     this.advisor = advisor;
-    this.moduleLoader = new CachedModuleLoader<>(new LibraryModuleLoader(tyckCounting, owner, advisor, states));
+    this.moduleLoader = new CachedModuleLoader<>(new LibraryModuleLoader(tyckCounting, owner, advisor, states, flags.tyckOptions()));
     this.reporter = counting;
     this.flags = flags;
     this.owner = owner;
@@ -101,24 +103,28 @@ public class LibraryCompiler {
     }
   }
 
-  private void parse(@NotNull LibrarySource source) throws IOException {
-    source.parseMe(advisor.createParser(reporter));
-  }
-
-  /** @return whether the source file is already parsed. */
-  private boolean parseIfNeeded(@NotNull LibrarySource source) throws IOException {
-    if (source.program() != null) return true; // already parsed
-    parse(source);
-    return false;
+  /**
+   * Parse source files on {@link CompilerFlags#jobs()} threads. Parsing a file does not depend on other files,
+   * each file reports to its own buffer, and buffers are flushed in the order of {@param sources}.
+   */
+  private void parseAll(@NotNull ImmutableSeq<LibrarySource> sources) throws IOException {
+    var buffers = new BufferReporter[sources.size()];
+    new SccScheduler<LibrarySource>(flags.jobs()).run(sources.map(ImmutableSeq::of), _ -> ImmutableSeq.empty(), (i, scc) -> {
+      var buffer = new BufferReporter();
+      buffers[i] = buffer;
+      scc.getFirst().parseMe(advisor.createParser(buffer));
+    }, i -> {
+      var buffer = buffers[i];
+      if (buffer != null) reporter.reportAll(buffer.problems().view());
+    });
   }
 
   /**
    * Traverse the source file's import statements and build its dependency graph.
-   * The graph is used to generate incremental build list according to files'
-   * last modified time.
+   * The graph is used to generate incremental build list according to
+   * {@link CompilerAdvisor#isSourceModified}.
    */
-  private void resolveImportsIfNeeded(@NotNull LibrarySource source) throws IOException {
-    if (parseIfNeeded(source)) return; // already resolved
+  private void resolveImports(@NotNull LibrarySource source) {
     var finder = new ImportResolver((mod, sourcePos) -> {
       var recurse = owner.findModule(mod);
       if (recurse == null) {
@@ -134,8 +140,11 @@ public class LibraryCompiler {
     var depGraph = MutableGraph.<LibrarySource>create();
     reportNest("[Info] Resolving source file dependency");
     var startTime = System.currentTimeMillis();
+    // The imports of a parsed source file are already resolved, see [LibrarySource#clearAllData]
+    var unparsed = owner.librarySources().filter(src -> src.program() == null).toSeq();
+    parseAll(unparsed);
+    unparsed.forEach(this::resolveImports);
     for (var src : owner.librarySources()) {
-      resolveImportsIfNeeded(src);
       var known = depGraph.sucMut(src);
       var dedup = src.imports.filter(s ->
         known.noneMatch(k -> k.moduleName().equals(s.moduleName())));
@@ -194,15 +203,21 @@ public class LibraryCompiler {
       }
     });
     // THE BIG GAME
-    modified.forEachChecked(src -> {
+    // The modules only read the tycked definitions here, so they are printed independently
+    var startTime = System.currentTimeMillis();
+    new SccScheduler<LibrarySource>(flags.jobs()).run(modified.map(ImmutableSeq::of), _ -> ImmutableSeq.empty(), (_, scc) -> {
+      var src = scc.getFirst();
       // reportNest(STR."[Pretty] \{QualifiedID.join(src.moduleName())}");
       var doc = src.pretty(ImmutableSeq.empty(), frontMatter, prettierOptions);
-      var text = renderOptions.render(outputTarget, doc, setup);
       var outputFileName = AyaFiles.stripAyaSourcePostfix(src.displayPath().toString()) + outputTarget.fileExt;
       var outputFile = outputDir.resolve(outputFileName);
       Files.createDirectories(outputFile.getParent());
-      Files.writeString(outputFile, text);
-    });
+      try (var writer = Files.newBufferedWriter(outputFile)) {
+        renderOptions.render(outputTarget, doc, setup, writer);
+      }
+    }, _ -> { });
+    reporter.reportNest("Done in " + TimeUtil.millisToString(
+      System.currentTimeMillis() - startTime), LibraryOwner.DEFAULT_INDENT + 2);
   }
 
   /**
@@ -262,13 +277,14 @@ public class LibraryCompiler {
 
     // clear some info instead of reparse? No we can't, because
     // the StmtResolver mutates the concrete tree.
-    SCCs.forEachChecked(i -> i.forEachChecked(this::reparseAffected));
+    parseAll(SCCs.flatMap(i -> i.filter(this::clearAffected)));
 
     advisor.prepareLibraryOutput(owner);
     advisor.notifyIncrementalJob(modified, SCCs);
 
     var tycker = new LibraryOrgaTycker(new LibrarySccTycker(moduleLoader, advisor), affected);
-    SCCs.forEachChecked(tycker::tyckSCC);
+    if (flags.jobs() > 1) tyckParallel(tycker, SCCs);
+    else SCCs.forEachChecked(tycker::tyckSCC);
     if (tycker.skippedSet.isNotEmpty()) {
       reporter.reportString("I dislike the following module(s):");
       tycker.skippedSet.forEach(f ->
@@ -281,11 +297,35 @@ public class LibraryCompiler {
     return false;
   }
 
-  private void reparseAffected(@NotNull LibrarySource src) throws IOException {
-    if (src.clearTyckData()) {
-      clearPrimitives(src.program());
-      parse(src);
-    }
+  /**
+   * Tyck SCCs on {@link CompilerFlags#jobs()} threads, an SCC is tycked as soon as its dependencies are done.
+   * Each SCC reports to its own buffer, and buffers are flushed in the order of {@param SCCs}.
+   */
+  private void tyckParallel(
+    @NotNull LibraryOrgaTycker tycker,
+    @NotNull ImmutableSeq<ImmutableSeq<LibrarySource>> SCCs
+  ) throws IOException {
+    var buffers = new BufferReporter[SCCs.size()];
+    new SccScheduler<LibrarySource>(flags.jobs()).run(SCCs, src -> src.imports, (i, scc) -> {
+      var buffer = new BufferReporter();
+      buffers[i] = buffer;
+      var loader = moduleLoader.derive(moduleLoader.loader.withReporter(CountingReporter.delegate(buffer)));
+      var sccTycker = new LibrarySccTycker(loader, advisor);
+      ImmutableSeq<LibrarySource> pending;
+      synchronized (tycker) { pending = tycker.pending(scc); }
+      var failed = sccTycker.tyckSCC(pending);
+      synchronized (tycker) { tycker.skip(failed); }
+    }, i -> {
+      var buffer = buffers[i];
+      if (buffer != null) reporter.reportAll(buffer.problems().view());
+    });
+  }
+
+  /** @return whether the source file needs reparse */
+  private boolean clearAffected(@NotNull LibrarySource src) {
+    if (!src.clearTyckData()) return false;
+    clearPrimitives(src.program());
+    return true;
   }
 
   private void clearModified(@NotNull LibrarySource src) {
@@ -359,7 +399,9 @@ public class LibraryCompiler {
   ) implements SccTycker<LibrarySource, IOException> {
     @Override
     public @NotNull ImmutableSeq<LibrarySource> tyckSCC(@NotNull ImmutableSeq<LibrarySource> order) throws IOException {
-      for (var f : order) advisor.clearModuleOutput(f);
+      // Early cutoff: if no import changed its interface, keep the compiled core, which is then loaded by [#tyckOne]
+      var reusable = order.sizeEquals(1) && advisor.isCompiledCoreReusable(order.getFirst());
+      if (!reusable) for (var f : order) advisor.clearModuleOutput(f);
       for (var f : order) {
         tyckOne(f);
         var reporter = moduleLoader.reporter();
@@ -13,6 +13,7 @@ import org.aya.resolve.error.LoadErrorKind;
 import org.aya.resolve.module.FileModuleLoader;
 import org.aya.resolve.module.ModuleLoader;
 import org.aya.states.primitive.PrimFactory;
+import org.aya.tyck.TyckOptions;
 import org.aya.syntax.AyaFiles;
 import org.aya.syntax.core.def.TyckDef;
 import org.aya.syntax.ref.ModulePath;
@@ -42,7 +43,8 @@ record LibraryModuleLoader(
   @Override @NotNull ClearableReporter reporter,
   @NotNull LibraryOwner owner,
   @NotNull CompilerAdvisor advisor,
-  @NotNull LibraryModuleLoader.United states
+  @NotNull LibraryModuleLoader.United states,
+  @NotNull TyckOptions tyckOptions
 ) implements ModuleLoader {
   @Override public @NotNull Result<ResolveInfo, LoadErrorKind>
   load(@NotNull ModulePath mod, @NotNull ModuleLoader recurseLoader) {
@@ -78,7 +80,7 @@ record LibraryModuleLoader(
     var resolveInfo = resolveModule(states.primFactory, context, program, recurseLoader);
     if (resolveInfo == null) return Result.err(LoadErrorKind.Resolve);
 
-    tyckModule(resolveInfo, (moduleResolve, defs) -> {
+    tyckModule(resolveInfo, tyckOptions, (moduleResolve, defs) -> {
       source.notifyTycked(moduleResolve, defs);
       if (reporter.noError()) saveCompiledCore(source, moduleResolve, defs, recurseLoader);
     });
@@ -93,6 +95,11 @@ record LibraryModuleLoader(
     return Result.ok(tyckedInfo);
   }
 
+  /// @return the same loader that reports to {@param reporter}, used for tycking modules in parallel
+  @NotNull LibraryModuleLoader withReporter(@NotNull ClearableReporter reporter) {
+    return new LibraryModuleLoader(reporter, owner, advisor, states, tyckOptions);
+  }
+
   @Override public boolean existsFileLevelModule(@NotNull ModulePath path) {
     return owner.findModule(path) != null;
   }
@@ -0,0 +1,88 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.cli.library.incremental;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.mutable.MutableLinkedHashMap;
+import org.aya.util.Panic;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/// The build record of a module, stored next to its compiled core, see [#pathOf].
+///
+/// @param source    the hash of the source file the core is compiled from
+/// @param api       the hash of everything a dependent module can observe, that is, the compiled core,
+///                  the generated classes, and the [#api]s of the imported modules
+/// @param imports   the [#api]s of the imported modules at the time of compilation, keyed by module name
+/// @see DiskCompilerAdvisor
+public record BuildManifest(
+  @NotNull String source,
+  @NotNull String api,
+  @NotNull ImmutableMap<String, String> imports
+) {
+  private static final String SOURCE = "source ";
+  private static final String API = "api ";
+  private static final String IMPORT = "import ";
+
+  public static @NotNull Path pathOf(@NotNull Path corePath) {
+    return corePath.resolveSibling(corePath.getFileName() + ".manifest");
+  }
+
+  /// @return null if the manifest does not exist or is malformed
+  public static @Nullable BuildManifest read(@NotNull Path path) {
+    try {
+      if (!Files.exists(path)) return null;
+      String source = null, api = null;
+      var imports = MutableLinkedHashMap.<String, String>of();
+      for (var line : Files.readAllLines(path)) {
+        if (line.startsWith(SOURCE)) source = line.substring(SOURCE.length());
+        else if (line.startsWith(API)) api = line.substring(API.length());
+        else if (line.startsWith(IMPORT)) {
+          // import <hash> <module>
+          var rest = line.substring(IMPORT.length());
+          var space = rest.indexOf(' ');
+          if (space < 0) return null;
+          imports.put(rest.substring(space + 1), rest.substring(0, space));
+        } else return null;
+      }
+      if (source == null || api == null) return null;
+      return new BuildManifest(source, api, ImmutableMap.from(imports));
+    } catch (IOException ignored) {
+      return null;
+    }
+  }
+
+  public void write(@NotNull Path path) throws IOException {
+    var builder = new StringBuilder();
+    builder.append(SOURCE).append(source).append('\n');
+    builder.append(API).append(api).append('\n');
+    imports.forEach((mod, hash) -> builder.append(IMPORT).append(hash).append(' ').append(mod).append('\n'));
+    Files.writeString(path, builder);
+  }
+
+  public static @NotNull MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new Panic(e);
+    }
+  }
+
+  public static @NotNull String hash(@NotNull MessageDigest digest) {
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  public static @NotNull String hash(@NotNull Path file) throws IOException {
+    var digest = digest();
+    digest.update(Files.readAllBytes(file));
+    return hash(digest);
+  }
+}
@@ -32,7 +32,14 @@ public interface CompilerAdvisor extends AutoCloseable {
   static @NotNull CompilerAdvisor inMemory() { return new InMemoryCompilerAdvisor(); }
 
   boolean isSourceModified(@NotNull LibrarySource source);
-  void updateLastModified(@NotNull LibrarySource source);
+
+  /**
+   * Called on an affected source right before it is tycked, when all its imports are done.
+   *
+   * @return true if the source is not modified and none of its imports changed their interface
+   * since the source was compiled, so the compiled core can be loaded instead of tycking it again.
+   */
+  default boolean isCompiledCoreReusable(@NotNull LibrarySource source) { return false; }
 
   void prepareLibraryOutput(@NotNull LibraryOwner owner) throws IOException;
   void clearLibraryOutput(@NotNull LibraryOwner owner) throws IOException;
@@ -112,9 +119,7 @@ public interface CompilerAdvisor extends AutoCloseable {
   ) {
     assert recurseLoader instanceof CachedModuleLoader<?>;
     try {
-      var info = doSaveCompiledCore(file, resolveInfo, defs, recurseLoader);
-      updateLastModified(file);
-      return info;
+      return doSaveCompiledCore(file, resolveInfo, defs, recurseLoader);
     } catch (IOException | ClassNotFoundException e) {
       e.printStackTrace();
       return resolveInfo;
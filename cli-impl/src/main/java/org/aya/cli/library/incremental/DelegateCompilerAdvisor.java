@@ -31,8 +31,8 @@ public class DelegateCompilerAdvisor implements CompilerAdvisor {
     return delegate.isSourceModified(source);
   }
 
-  @Override public void updateLastModified(@NotNull LibrarySource source) {
-    delegate.updateLastModified(source);
+  @Override public boolean isCompiledCoreReusable(@NotNull LibrarySource source) {
+    return delegate.isCompiledCoreReusable(source);
   }
 
   @Override public void prepareLibraryOutput(@NotNull LibraryOwner owner) throws IOException {
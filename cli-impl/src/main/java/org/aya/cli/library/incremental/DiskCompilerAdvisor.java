@@ -2,12 +2,16 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.cli.library.incremental;
 
+import kala.collection.immutable.ImmutableMap;
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableLinkedHashMap;
 import kala.collection.mutable.MutableList;
 import org.aya.cli.library.source.LibraryOwner;
 import org.aya.cli.library.source.LibrarySource;
 import org.aya.cli.utils.CompilerUtil;
+import org.aya.compiler.AsmOutputCollector;
 import org.aya.compiler.CompiledModule;
+import org.aya.compiler.CompiledModuleFormat;
 import org.aya.compiler.serializers.ModuleSerializer;
 import org.aya.compiler.serializers.NameSerializer;
 import org.aya.resolve.ResolveInfo;
@@ -27,40 +31,76 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class DiskCompilerAdvisor implements CompilerAdvisor {
+  /// Modules of a library may be loaded in parallel, see {@link org.aya.util.tyck.SccScheduler}
   private static class AyaClassLoader extends URLClassLoader {
+    static { registerAsParallelCapable(); }
     public MutableList<Path> urls = MutableList.create();
     public AyaClassLoader() {
       super(new URL[0], DiskCompilerAdvisor.class.getClassLoader());
     }
-    public void addURL(Path url) throws MalformedURLException {
+    public synchronized void addURL(Path url) throws MalformedURLException {
       addURL(url.toUri().toURL());
       urls.append(url);
     }
   }
   private final AyaClassLoader cl = new AyaClassLoader();
   @Override public void close() throws Exception { cl.close(); }
+  /// The loader of the compiled modules
+  public @NotNull ClassLoader classLoader() { return cl; }
 
+  /// Compares the content of the source with the one recorded in its [BuildManifest], timestamps are not trusted
   @Override public boolean isSourceModified(@NotNull LibrarySource source) {
     try {
       var core = source.compiledCorePath();
-      if (!Files.exists(core)) return true;
-      return Files.getLastModifiedTime(source.underlyingFile)
-        .compareTo(Files.getLastModifiedTime(core)) > 0;
+      if (!Files.exists(core) || !CompiledModuleFormat.isCurrent(core)) return true;
+      var manifest = manifest(source);
+      return manifest == null || !manifest.source().equals(BuildManifest.hash(source.underlyingFile));
     } catch (IOException ignore) {
       return true;
     }
   }
 
-  @Override public void updateLastModified(@NotNull LibrarySource source) {
-    try {
-      var core = source.compiledCorePath();
-      Files.setLastModifiedTime(core, Files.getLastModifiedTime(source.underlyingFile));
-    } catch (IOException ignore) {
+  @Override public boolean isCompiledCoreReusable(@NotNull LibrarySource source) {
+    if (isSourceModified(source)) return false;
+    var manifest = manifest(source);
+    if (manifest == null) return false;
+    return source.imports.allMatch(imported -> {
+      var dep = manifest(imported);
+      return dep != null && dep.api().equals(manifest.imports().getOrNull(imported.moduleName().toString()));
+    });
+  }
+
+  private static @Nullable BuildManifest manifest(@NotNull LibrarySource source) {
+    return BuildManifest.read(BuildManifest.pathOf(source.compiledCorePath()));
+  }
+
+  private static void writeManifest(
+    @NotNull LibrarySource file, @NotNull Path coreFile,
+    @NotNull AsmOutputCollector.Default javaCode
+  ) throws IOException {
+    var imports = MutableLinkedHashMap.<String, String>of();
+    for (var imported : file.imports) {
+      // Imports are compiled (or reused) before, a missing manifest only makes this one never reusable
+      var dep = manifest(imported);
+      imports.put(imported.moduleName().toString(), dep == null ? "" : dep.api());
     }
+    // The api hash covers function bodies as well, because dependents may unfold them during tycking.
+    // It includes the api of the imports, so that changes propagate transitively.
+    var digest = BuildManifest.digest();
+    digest.update(Files.readAllBytes(coreFile));
+    var classes = javaCode.output();
+    for (var path : ImmutableSeq.from(classes.keysView()).sorted()) {
+      digest.update(path.toString().getBytes(StandardCharsets.UTF_8));
+      digest.update(classes.get(path));
+    }
+    imports.forEach((mod, api) -> digest.update((mod + ' ' + api + '\n').getBytes(StandardCharsets.UTF_8)));
+    new BuildManifest(BuildManifest.hash(file.underlyingFile), BuildManifest.hash(digest), ImmutableMap.from(imports))
+      .write(BuildManifest.pathOf(coreFile));
   }
 
   @Override public void prepareLibraryOutput(@NotNull LibraryOwner owner) throws IOException {
@@ -72,7 +112,9 @@ public class DiskCompilerAdvisor implements CompilerAdvisor {
   }
 
   @Override public void clearModuleOutput(@NotNull LibrarySource source) throws IOException {
-    Files.deleteIfExists(source.compiledCorePath());
+    var core = source.compiledCorePath();
+    Files.deleteIfExists(core);
+    Files.deleteIfExists(BuildManifest.pathOf(core));
   }
 
   /**
@@ -106,13 +148,11 @@ public class DiskCompilerAdvisor implements CompilerAdvisor {
     if (corePath == null || sourcePath == null) return null;
     if (!Files.exists(corePath)) return null;
 
-    try (var inputStream = FileUtil.ois(corePath)) {
-      var compiledAya = (CompiledModule) inputStream.readObject();
-      var parentCount = mod.size();
-      var libraryRoot = corePath;
-      for (int i = 0; i < parentCount; i++) libraryRoot = libraryRoot.getParent();
-      return doLoadCompiledCore(compiledAya, reporter, mod, sourcePath, libraryRoot, recurseLoader, new PrimFactory());
-    }
+    var compiledAya = CompiledModuleFormat.read(corePath);
+    var parentCount = mod.size();
+    var libraryRoot = corePath;
+    for (int i = 0; i < parentCount; i++) libraryRoot = libraryRoot.getParent();
+    return doLoadCompiledCore(compiledAya, reporter, mod, sourcePath, libraryRoot, recurseLoader, new PrimFactory());
   }
 
   @Override public @NotNull ResolveInfo doSaveCompiledCore(
@@ -131,6 +171,7 @@ public class DiskCompilerAdvisor implements CompilerAdvisor {
 
     // save compiled core and load compiled ResolveInfo
     var coreMod = CompilerUtil.saveCompiledCore(coreFile, defs, resolveInfo);
+    writeManifest(file, coreFile, javaCode);
     return doLoadCompiledCore(
       coreMod, resolveInfo.reporter(),
       resolveInfo.modulePath(), file.underlyingFile, libraryRoot,
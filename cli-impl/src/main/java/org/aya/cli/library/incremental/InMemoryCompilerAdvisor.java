@@ -27,7 +27,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     return source.underlyingFile;
   }
 
-  @Override public boolean isSourceModified(@NotNull LibrarySource source) {
+  @Override public synchronized boolean isSourceModified(@NotNull LibrarySource source) {
     var coreLastModified = coreTimestamp.getOption(timestampKey(source));
     try {
       if (coreLastModified.isEmpty()) return true;
@@ -38,7 +38,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     }
   }
 
-  @Override public void updateLastModified(@NotNull LibrarySource source) {
+  private void updateLastModified(@NotNull LibrarySource source) {
     try {
       coreTimestamp.put(timestampKey(source), Files.getLastModifiedTime(timestampKey(source)));
     } catch (IOException ignore) {
@@ -54,13 +54,13 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     });
   }
 
-  @Override public void clearModuleOutput(@NotNull LibrarySource source) {
+  @Override public synchronized void clearModuleOutput(@NotNull LibrarySource source) {
     // TODO: what if module name clashes?
     compiledCore.remove(source.moduleName());
   }
 
   @Override
-  public @Nullable ResolveInfo doLoadCompiledCore(
+  public synchronized @Nullable ResolveInfo doLoadCompiledCore(
     @NotNull Reporter reporter,
     @NotNull LibraryOwner owner, @NotNull ModulePath mod,
     @Nullable Path sourcePath,
@@ -71,7 +71,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
     return compiledCore.getOrNull(mod);
   }
 
-  @Override public @NotNull ResolveInfo doSaveCompiledCore(
+  @Override public synchronized @NotNull ResolveInfo doSaveCompiledCore(
     @NotNull LibrarySource file,
     @NotNull ResolveInfo resolveInfo,
     @NotNull ImmutableSeq<TyckDef> defs,
@@ -79,6 +79,7 @@ public class InMemoryCompilerAdvisor implements CompilerAdvisor {
   ) {
     // TODO: what if module name clashes?
     compiledCore.put(file.moduleName(), resolveInfo);
+    updateLastModified(file);
     return resolveInfo;
   }
 }
@@ -121,13 +121,15 @@ public class LibrarySource implements GenericAyaFile {
   }
 
   @Override public @NotNull GenericAyaProgram parseMe(@NotNull GenericAyaParser parser) throws IOException {
+    // Read the file only once, see [#codeFile]
+    var file = originalFile();
     if (isLiterate) {
-      var data = LiterateData.create(originalFile(), parser.reporter());
+      var data = LiterateData.create(file, parser.reporter());
       data.parseMe(parser);
       literateData = data;
     }
 
-    var ayaProgram = GenericAyaFile.super.parseMe(parser);
+    var ayaProgram = parser.program(isLiterate ? literateData.extractedAya() : file, file);
     program = ayaProgram.program();
 
     if (ayaProgram instanceof NodedAyaProgram nodedProgram) {
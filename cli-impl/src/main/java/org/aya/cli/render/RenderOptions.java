@@ -12,6 +12,7 @@ import org.aya.pretty.backend.latex.TeXStylist;
 import org.aya.pretty.backend.md.DocMdPrinter;
 import org.aya.pretty.backend.md.MdStylist;
 import org.aya.pretty.backend.string.DebugStylist;
+import org.aya.pretty.backend.string.StringPrinter;
 import org.aya.pretty.backend.string.StringPrinterConfig;
 import org.aya.pretty.backend.string.StringStylist;
 import org.aya.pretty.backend.terminal.AdaptiveCliStylist;
@@ -19,11 +20,13 @@ import org.aya.pretty.backend.terminal.DocTermPrinter;
 import org.aya.pretty.backend.terminal.UnixTermStylist;
 import org.aya.pretty.doc.Doc;
 import org.aya.pretty.printer.ColorScheme;
+import org.aya.pretty.printer.Printer;
 import org.aya.pretty.printer.PrinterConfig;
 import org.aya.pretty.printer.StyleFamily;
 import org.aya.pretty.style.AyaColorScheme;
 import org.aya.pretty.style.AyaStyleFamily;
 import org.aya.util.ForLSP;
+import org.aya.util.Panic;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -129,7 +132,8 @@ public class RenderOptions {
     };
   }
 
-  public @NotNull StringStylist stylist(@NotNull OutputTarget output) throws IOException, JsonParseException {
+  /// Synchronized for the memorized color scheme and style family, as modules may be rendered in parallel
+  public synchronized @NotNull StringStylist stylist(@NotNull OutputTarget output) throws IOException, JsonParseException {
     if (isDefault()) return defaultStylist(output);
     final var c = buildColorScheme();
     final var s = buildStyleFamily();
@@ -184,15 +188,29 @@ public class RenderOptions {
   }
 
   public @NotNull String render(@NotNull OutputTarget output, @NotNull Doc doc, @NotNull BackendSetup setup) {
+    var builder = new StringBuilder();
+    try {
+      render(output, doc, setup, builder);
+    } catch (IOException e) {
+      throw new Panic(e);
+    }
+    return builder.toString();
+  }
+
+  /// Write the rendered content into {@param out} as the rendering goes, see [Printer#render(PrinterConfig, Doc, Appendable)]
+  public void render(
+    @NotNull OutputTarget output, @NotNull Doc doc,
+    @NotNull BackendSetup setup, @NotNull Appendable out
+  ) throws IOException {
     var stylist = stylistOrDefault(output);
-    return switch (output) {
-      case Plain -> doc.renderToString(setup.setup(new StringPrinterConfig<>(stylist)));
-      case KaTeX, LaTeX -> doc.render(new DocTeXPrinter(), setup.setup(new DocTeXPrinter.Config((TeXStylist) stylist)));
-      case HTML -> doc.render(new DocHtmlPrinter<>(), setup.setup(new DocHtmlPrinter.Config((Html5Stylist) stylist)));
-      case AyaMd -> doc.render(new DocMdPrinter(), setup.setup(new DocMdPrinter.Config((MdStylist) stylist)));
+    switch (output) {
+      case Plain -> doc.render(new StringPrinter<>(), setup.setup(new StringPrinterConfig<>(stylist)), out);
+      case KaTeX, LaTeX -> doc.render(new DocTeXPrinter(), setup.setup(new DocTeXPrinter.Config((TeXStylist) stylist)), out);
+      case HTML -> doc.render(new DocHtmlPrinter<>(), setup.setup(new DocHtmlPrinter.Config((Html5Stylist) stylist)), out);
+      case AyaMd -> doc.render(new DocMdPrinter(), setup.setup(new DocMdPrinter.Config((MdStylist) stylist)), out);
       case Unix, ANSI16 ->
-        doc.render(new DocTermPrinter(), setup.setup(new DocTermPrinter.Config((UnixTermStylist) stylist)));
-    };
+        doc.render(new DocTermPrinter(), setup.setup(new DocTermPrinter.Config((UnixTermStylist) stylist)), out);
+    }
   }
 
   private @NotNull ColorScheme buildColorScheme() throws IOException, JsonParseException {
@@ -7,20 +7,40 @@ import org.aya.cli.render.RenderOptions;
 import org.aya.cli.utils.CliEnums;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.pretty.backend.string.StringPrinterConfig;
+import org.aya.tyck.TyckOptions;
 import org.aya.util.PrettierOptions;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 
+/// @param jobs        the number of modules that can be type checked (or pretty printed) in parallel when compiling libraries
+/// @param tyckOptions the options of type checking each module
 public record CompilerFlags(
   @NotNull Message message,
   boolean interruptedTrace,
   boolean remake,
   @Nullable CompilerFlags.PrettyInfo prettyInfo,
   @NotNull SeqView<Path> modulePaths,
-  @Nullable Path outputFile
+  @Nullable Path outputFile,
+  int jobs,
+  @NotNull TyckOptions tyckOptions
 ) {
+  public CompilerFlags(
+    @NotNull Message message, boolean interruptedTrace, boolean remake,
+    @Nullable PrettyInfo prettyInfo, @NotNull SeqView<Path> modulePaths, @Nullable Path outputFile,
+    int jobs
+  ) {
+    this(message, interruptedTrace, remake, prettyInfo, modulePaths, outputFile, jobs, TyckOptions.DEFAULT);
+  }
+
+  public CompilerFlags(
+    @NotNull Message message, boolean interruptedTrace, boolean remake,
+    @Nullable PrettyInfo prettyInfo, @NotNull SeqView<Path> modulePaths, @Nullable Path outputFile
+  ) {
+    this(message, interruptedTrace, remake, prettyInfo, modulePaths, outputFile, 1);
+  }
+
   public static @Nullable CompilerFlags.PrettyInfo prettyInfoFromOutput(
     @Nullable Path outputFile, @NotNull RenderOptions renderOptions,
     boolean noCodeStyle, boolean inlineCodeStyle, boolean SSR
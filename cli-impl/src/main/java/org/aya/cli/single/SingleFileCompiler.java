@@ -65,7 +65,7 @@ public final class SingleFileCompiler {
       ayaFile.pretty(flags, program, collectingReporter, CliEnums.PrettyStage.raw);
       var info = loader.resolveModule(new PrimFactory(), context, program, loader);
       if (info == null) return;
-      loader.tyckModule(info, (resolveInfo, defs) -> {
+      loader.tyckModule(info, flags.tyckOptions(), (resolveInfo, defs) -> {
         ayaFile.tyckAdditional(resolveInfo);
         ayaFile.pretty(flags, program, collectingReporter, CliEnums.PrettyStage.scoped);
         ayaFile.pretty(flags, defs, collectingReporter, CliEnums.PrettyStage.typed);
@@ -6,6 +6,7 @@ import kala.collection.immutable.ImmutableSeq;
 import kala.function.CheckedRunnable;
 import org.aya.cli.single.CompilerFlags;
 import org.aya.compiler.CompiledModule;
+import org.aya.compiler.CompiledModuleFormat;
 import org.aya.generic.InterruptException;
 import org.aya.resolve.ResolveInfo;
 import org.aya.syntax.core.def.TyckDef;
@@ -14,8 +15,6 @@ import org.aya.util.reporter.CountingReporter;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class CompilerUtil {
@@ -49,17 +48,10 @@ public class CompilerUtil {
     @NotNull ResolveInfo resolveInfo
   ) throws IOException {
     var compiledAya = CompiledModule.from(resolveInfo, defs);
-    try (var outputStream = coreWriter(coreFile)) {
-      outputStream.writeObject(compiledAya);
-    }
-
+    CompiledModuleFormat.write(compiledAya, coreFile);
     return compiledAya;
   }
 
-  private static @NotNull ObjectOutputStream coreWriter(@NotNull Path coreFile) throws IOException {
-    Files.createDirectories(coreFile.toAbsolutePath().getParent());
-    return new ObjectOutputStream(Files.newOutputStream(coreFile));
-  }
   public static void handleInternalError(@NotNull Panic e) {
     e.printStackTrace();
     e.printHint();
@@ -17,11 +17,19 @@ import org.aya.cli.single.CompilerFlags;
 import org.aya.cli.utils.CliEnums;
 import org.aya.ide.LspPrimFactory;
 import org.aya.prettier.AyaPrettierOptions;
+import org.aya.producer.error.ParseError;
+import org.aya.states.WhnfCache;
 import org.aya.states.primitive.PrimFactory;
+import org.aya.syntax.compile.JitFn;
+import org.aya.syntax.ref.CompiledVar;
+import org.aya.syntax.ref.ModulePath;
+import org.aya.tyck.TyckOptions;
 import org.aya.util.FileUtil;
+import org.aya.util.reporter.BufferReporter;
 import org.aya.util.reporter.ThrowingReporter;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -30,10 +38,13 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeMap;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * LibraryTest testing the compilation of a library and its dependencies
@@ -41,6 +52,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  * @see #testOnDisk
  * @see #testLiterate
  * @see #testInMemoryAndPrim
+ * @see #testEarlyCutoff
+ * @see #testLazyCompiledVar
+ * @see #testParallel
+ * @see #testTyckOptions
+ * @see #testParseError
  */
 public class LibraryTest {
   public static final ThrowingReporter REPORTER = new ThrowingReporter(AyaPrettierOptions.pretty());
@@ -57,6 +73,124 @@ public class LibraryTest {
     assertEquals(0, compile(libRoot));
     // The third time should do nothing.
     assertEquals(0, compile(libRoot));
+    // Touching a source doesn't change its content, so nothing is recompiled either.
+    var core = libRoot.resolve("build").resolve("out").resolve("Test.ayac");
+    var coreTime = Files.getLastModifiedTime(core);
+    Files.setLastModifiedTime(libRoot.resolve("src").resolve("Test.aya"),
+      FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+    assertEquals(0, compile(libRoot));
+    assertEquals(coreTime, Files.getLastModifiedTime(core));
+  }
+
+  /// The definitions of a compiled module are bound lazily: loading the module doesn't load them,
+  /// and they resolve to the compiled definitions when used.
+  @Test public void testLazyCompiledVar() throws IOException {
+    FileUtil.deleteRecursively(DIR.resolve("build"));
+    var compiler = LibraryCompiler.newCompiler(new PrimFactory(), REPORTER, TestRunner.flags(), CompilerAdvisor.onDisk(), DIR);
+    assertEquals(0, compiler.start());
+    var match = compiler.libraryOwner().findModule(ModulePath.of("Match"));
+    assertNotNull(match);
+    var info = match.resolveInfo();
+    assertNotNull(info);
+    var test = assertInstanceOf(CompiledVar.class, info.thisModule().exports().symbols().get("test"));
+    assertFalse(test.isLoaded());
+    // Comparing by the name doesn't load it either
+    var qname = test.qualifiedName();
+    assertEquals(CompiledVar.lazy(qname, () -> fail("Loaded")), test);
+    assertFalse(test.isLoaded());
+
+    var core = assertInstanceOf(JitFn.class, test.core());
+    assertTrue(test.isLoaded());
+    assertEquals(qname, core.qualifiedName());
+    assertEquals(new CompiledVar(core), test);
+  }
+
+  /// Changing the comments of a module only recompiles that module,
+  /// the compiled cores of its dependents are reused because its interface is unchanged.
+  @Test public void testEarlyCutoff(@TempDir @NotNull Path libRoot) throws IOException {
+    Files.writeString(libRoot.resolve("aya.json"), """
+      { "ayaVersion": "0.39", "group": "org.aya-prover", "name": "cutoff", "version": "0.1.0" }
+      """);
+    var src = Files.createDirectories(libRoot.resolve("src"));
+    var lib = src.resolve("Lib.aya");
+    Files.writeString(lib, """
+      open inductive Bool | true | false
+      def yes : Bool => true
+      """);
+    Files.writeString(src.resolve("Use.aya"), """
+      open import Lib
+      def no : Bool => yes
+      """);
+    assertEquals(0, compile(libRoot));
+
+    var out = libRoot.resolve("build").resolve("out");
+    var libCore = out.resolve("Lib.ayac");
+    var useCore = out.resolve("Use.ayac");
+    var stale = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(libCore, stale);
+    Files.setLastModifiedTime(useCore, stale);
+    Files.writeString(lib, "// Some comment\n" + Files.readString(lib) + "\n");
+    assertEquals(0, compile(libRoot));
+    assertTrue(Files.getLastModifiedTime(libCore).compareTo(stale) > 0);
+    assertEquals(stale, Files.getLastModifiedTime(useCore));
+
+    // A change of the interface still recompiles the dependents
+    Files.writeString(lib, Files.readString(lib).replace("=> true", "=> false"));
+    assertEquals(0, compile(libRoot));
+    assertTrue(Files.getLastModifiedTime(useCore).compareTo(stale) > 0);
+  }
+
+  @Test public void testParallel() throws IOException {
+    FileUtil.deleteRecursively(DIR.resolve("build"));
+    var flags = new CompilerFlags(CompilerFlags.Message.ASCII, false, false, null, SeqView.empty(), null, 4);
+    assertEquals(0, compile(flags, DIR));
+  }
+
+  /// Checking function bodies in parallel should report the same problems
+  /// and produce the same output as checking them one by one.
+  @Test public void testParallelBodies() throws IOException {
+    var serial = compileAndCollect(new TyckOptions(1, false, 0));
+    var parallel = compileAndCollect(new TyckOptions(4, false, 0));
+    assertEquals(serial.problems(), parallel.problems());
+    assertEquals(serial.outputs().keySet(), parallel.outputs().keySet());
+    serial.outputs().forEach((file, bytes) -> assertArrayEquals(bytes, parallel.outputs().get(file), file));
+  }
+
+  private record Build(@NotNull ImmutableSeq<String> problems, @NotNull Map<String, byte[]> outputs) { }
+
+  private static @NotNull Build compileAndCollect(@NotNull TyckOptions options) throws IOException {
+    FileUtil.deleteRecursively(DIR.resolve("build"));
+    var reporter = new BufferReporter();
+    var flags = new CompilerFlags(CompilerFlags.Message.ASCII, false, false, null, SeqView.empty(), null, 1, options);
+    assertEquals(0, LibraryCompiler.compile(new PrimFactory(), reporter, flags, CompilerAdvisor.onDisk(), DIR));
+    var problems = reporter.problems().view()
+      .map(p -> p.sourcePos() + ": " + p.brief(AyaPrettierOptions.pretty()).debugRender())
+      .toSeq();
+    var out = DIR.resolve("build").resolve("out");
+    var outputs = new TreeMap<String, byte[]>();
+    try (var files = Files.walk(out)) {
+      for (var file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator)
+        outputs.put(out.relativize(file).toString(), Files.readAllBytes(file));
+    }
+    return new Build(problems, outputs);
+  }
+
+  @Test public void testTyckOptions() throws IOException {
+    FileUtil.deleteRecursively(DIR.resolve("build"));
+    var options = new TyckOptions(1, true, WhnfCache.DEFAULT_CAPACITY);
+    var flags = new CompilerFlags(CompilerFlags.Message.ASCII, false, false, null, SeqView.empty(), null, 1, options);
+    assertEquals(0, compile(flags, DIR));
+  }
+
+  @Test public void testParseError(@TempDir @NotNull Path libRoot) throws IOException {
+    Files.writeString(libRoot.resolve("aya.json"), """
+      { "ayaVersion": "0.39", "group": "org.aya-prover", "name": "bad", "version": "0.1.0" }
+      """);
+    var src = Files.createDirectories(libRoot.resolve("src"));
+    Files.writeString(src.resolve("Bad.aya"), "def = )\n");
+    var reporter = new BufferReporter();
+    assertEquals(1, LibraryCompiler.compile(new PrimFactory(), reporter, TestRunner.flags(), CompilerAdvisor.onDisk(), libRoot));
+    assertTrue(reporter.problems().anyMatch(p -> p instanceof ParseError));
   }
 
   // Use this test for incremental compilation
@@ -3,14 +3,18 @@
 package org.aya.test.cli;
 
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableSet;
 import org.aya.cli.interactive.ReplCompiler;
+import org.aya.compiler.MemoryClassLoader;
 import org.aya.generic.Constants;
 import org.aya.prettier.AyaPrettierOptions;
+import org.aya.syntax.compile.JitCon;
 import org.aya.syntax.concrete.stmt.QualifiedID;
 import org.aya.syntax.core.term.DepTypeTerm;
 import org.aya.syntax.core.term.SortTerm;
 import org.aya.syntax.core.term.call.DataCall;
 import org.aya.syntax.core.term.repr.IntegerTerm;
+import org.aya.syntax.core.term.repr.ListTerm;
 import org.aya.syntax.literate.CodeOptions.NormalizeMode;
 import org.aya.syntax.ref.AnyVar;
 import org.aya.syntax.ref.CompiledVar;
@@ -157,6 +161,71 @@ public class ReplCompilerTest {
     assertEquals(120, integer.repr());
   }
 
+  @Test public void jit() {
+    compiler.jit = true;
+    compile("""
+      open inductive Nat | zero | suc Nat
+      def double Nat : Nat
+      | zero => zero
+      | suc n => suc (suc (double n))
+      """);
+    var term = compiler.compileToContext("double 21", NormalizeMode.FULL).getRightValue();
+    var integer = assertInstanceOf(IntegerTerm.class, term);
+    assertEquals(42, integer.repr());
+    // Computed by the compiled code
+    assertInstanceOf(JitCon.class, integer.suc());
+
+    // Redefinitions are compiled again
+    compile("def double Nat : Nat => zero");
+    term = compiler.compileToContext("double 21", NormalizeMode.FULL).getRightValue();
+    assertEquals(0, assertInstanceOf(IntegerTerm.class, term).repr());
+  }
+
+  @Test public void jitUnloadShadowed() {
+    compiler.jit = true;
+    compile("open inductive Nat | zero | suc Nat");
+    compile("def two : Nat => suc (suc zero)");
+    var shadowed = jitLoader("two");
+    compile("def two : Nat => zero");
+    var latest = assertInstanceOf(MemoryClassLoader.class, jitLoader("two"));
+    assertNotSame(shadowed, latest);
+    // Only the loader of `Nat` is referred, so the shadowed one can be unloaded
+    assertFalse(reachable(latest).contains(shadowed));
+    assertTrue(reachable(latest).contains(jitLoader("Nat")));
+
+    // List literals refer to the loader of the data type, not to the shadowed definition
+    compile("open inductive List (A : Type) | nil | infixr :< A (List A)");
+    compile("def xs : List Nat => [ two ]");
+    var shadowedXs = jitLoader("xs");
+    compile("def xs : List Nat => [ two, two ]");
+    var latestXs = assertInstanceOf(MemoryClassLoader.class, jitLoader("xs"));
+    assertFalse(reachable(latestXs).contains(shadowedXs));
+    assertTrue(reachable(latestXs).contains(jitLoader("List")));
+    var list = assertInstanceOf(ListTerm.class, compiler.compileToContext("xs", NormalizeMode.FULL).getRightValue());
+    assertSame(jitLoader("List"), list.type().ref().getClass().getClassLoader());
+
+    // A list literal given to the compiled code is rebound to the latest data type and constructors
+    compile("""
+      def len (List Nat) : Nat
+      | nil => zero
+      | _ :< xs => suc (len xs)
+      """);
+    var len = compiler.compileToContext("len [ two, two, two ]", NormalizeMode.FULL).getRightValue();
+    assertEquals(3, assertInstanceOf(IntegerTerm.class, len).repr());
+  }
+
+  private @Nullable ClassLoader jitLoader(@NotNull String name) {
+    return compiler.jitLoader(assertInstanceOf(DefVar.class, findContext(name)));
+  }
+
+  private static @NotNull MutableSet<ClassLoader> reachable(@NotNull MemoryClassLoader loader) {
+    var reachable = MutableSet.<ClassLoader>create();
+    for (var visible : loader.visibleLoaders()) {
+      if (reachable.add(visible) && visible instanceof MemoryClassLoader memory) reachable.addAll(reachable(memory));
+    }
+    return reachable;
+  }
+
   private @Nullable AnyVar findContext(@NotNull String name) {
     var ctx = compiler.getContext();
     var result = ctx.getMaybe(new QualifiedID(SourcePos.NONE,
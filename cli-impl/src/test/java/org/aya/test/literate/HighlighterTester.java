@@ -208,7 +208,7 @@ public class HighlighterTester {
   // region Helper
 
   private static @NotNull SourcePos mockPos(int start, int end) {
-    return new SourcePos(SourceFile.NONE, start, end, 0, 0, 0, 0);
+    return new SourcePos(SourceFile.NONE, start, end);
   }
 
   public static @NotNull ExpectedHighlightInfo keyword(int begin, int end, @NotNull String display) {
@@ -7,9 +7,12 @@ import kala.collection.immutable.ImmutableSeq;
 import org.aya.cli.library.source.LibraryOwner;
 import org.aya.cli.library.source.LibrarySource;
 import org.aya.cli.literate.HighlightInfo;
+import org.aya.cli.literate.SyntaxHighlight;
+import org.aya.ide.SymbolIndex;
 import org.aya.ide.action.ProjectSymbol;
 import org.aya.ide.action.ProjectSymbol.Symbol;
 import org.aya.lsp.utils.LspRange;
+import org.aya.syntax.ref.DefVar;
 import org.aya.util.PrettierOptions;
 import org.intellij.lang.annotations.MagicConstant;
 import org.javacs.lsp.DocumentSymbol;
@@ -23,8 +26,11 @@ public interface SymbolMaker {
     return ProjectSymbol.invoke(options, source).map(SymbolMaker::documentSymbol);
   }
 
-  static @NotNull ImmutableSeq<WorkspaceSymbol> workspaceSymbols(@NotNull PrettierOptions options, @NotNull CollectionView<LibraryOwner> libraries) {
-    return ProjectSymbol.invoke(options, libraries).mapNotNull(SymbolMaker::workspaceSymbol);
+  /// The maximum number of symbols returned for a workspace symbol query
+  int WORKSPACE_SYMBOL_LIMIT = 100;
+
+  static @NotNull ImmutableSeq<WorkspaceSymbol> workspaceSymbols(@NotNull CollectionView<LibraryOwner> libraries, @NotNull String query) {
+    return SymbolIndex.search(libraries, query, WORKSPACE_SYMBOL_LIMIT).mapNotNull(SymbolMaker::workspaceSymbol);
   }
 
   private static int kindOf(@NotNull HighlightInfo.DefKind kind) {
@@ -44,10 +50,10 @@ public interface SymbolMaker {
     return symbolKind;
   }
 
-  private static @Nullable WorkspaceSymbol workspaceSymbol(@NotNull Symbol symbol) {
-    var nameLoc = LspRange.toLoc(symbol.nameLocation());
+  private static @Nullable WorkspaceSymbol workspaceSymbol(@NotNull DefVar<?, ?> ref) {
+    var nameLoc = LspRange.toLoc(ref.concrete.nameSourcePos());
     if (nameLoc == null) return null;
-    return new WorkspaceSymbol(symbol.name(), kindOf(symbol.kind()), nameLoc);
+    return new WorkspaceSymbol(ref.name(), kindOf(SyntaxHighlight.kindOf(ref)), nameLoc);
   }
 
   private static @NotNull DocumentSymbol documentSymbol(@NotNull Symbol symbol) {
@@ -425,7 +425,8 @@ public class AyaLanguageServer implements LanguageServer {
   }
 
   @Override public List<? extends GenericWorkspaceSymbol> workspaceSymbols(WorkspaceSymbolParams params) {
-    return SymbolMaker.workspaceSymbols(options, libraries()).asJava();
+    var query = params.query == null ? "" : params.query;
+    return SymbolMaker.workspaceSymbols(libraries(), query).asJava();
   }
 
   @Override
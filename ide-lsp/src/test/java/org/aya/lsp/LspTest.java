@@ -3,10 +3,15 @@
 package org.aya.lsp;
 
 import com.google.gson.Gson;
+import kala.collection.SeqView;
 import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
 import org.aya.cli.library.source.LibrarySource;
 import org.aya.cli.render.RenderOptions;
 import org.aya.generic.Constants;
+import org.aya.ide.Resolver;
+import org.aya.ide.SymbolIndex;
+import org.aya.ide.action.FindReferences;
 import org.aya.lsp.models.ProjectPath;
 import org.aya.lsp.models.ServerOptions;
 import org.aya.lsp.models.ServerRenderOptions;
@@ -14,11 +19,14 @@ import org.aya.lsp.server.AyaLanguageServer;
 import org.aya.lsp.tester.LspTestClient;
 import org.aya.lsp.tester.LspTestCompilerAdvisor;
 import org.aya.syntax.concrete.Pattern;
+import org.aya.syntax.concrete.stmt.decl.Decl;
 import org.aya.syntax.concrete.stmt.decl.FnBody;
 import org.aya.syntax.concrete.stmt.decl.FnDecl;
 import org.aya.syntax.core.term.MetaPatTerm;
 import org.aya.syntax.core.term.call.DataCall;
+import org.aya.syntax.ref.DefVar;
 import org.aya.util.FileUtil;
+import org.aya.util.position.SourcePos;
 import org.javacs.lsp.InitializeParams;
 import org.javacs.lsp.Position;
 import org.javacs.lsp.TextDocumentIdentifier;
@@ -91,6 +99,41 @@ public class LspTest {
     );
   }
 
+  @Test public void testReferenceIndex() {
+    launch(TEST_LIB).execute(
+      compile((a, _) -> assertIndexedRefs(a)),
+      mutate("Nat::Core"),
+      compile((a, _) -> assertIndexedRefs(a))
+    );
+  }
+
+  /// The indexed references should be the same as the ones found by traversing all programs
+  private static void assertIndexedRefs(@NotNull LspTestCompilerAdvisor advisor) {
+    var owner = advisor.lastCompiled().getFirst().owner;
+    var programs = owner.librarySources().mapNotNull(LibrarySource::program).toSeq();
+    programs.flatMap(p -> p).filterIsInstance(Decl.class).flatMap(decl -> Resolver.withChildren(decl)).forEach(def -> {
+      var scan = new Resolver.UsageResolver(def, MutableList.create());
+      programs.forEach(p -> p.forEach(scan));
+      var indexed = FindReferences.findRefs(SeqView.of(def), SeqView.of(owner));
+      assertEquals(scan.collect().view().map(LspTest::posKey).toSeq(), indexed.map(LspTest::posKey).toSeq());
+    });
+  }
+
+  @Test public void testSymbolIndex() {
+    launch(TEST_LIB).execute(compile((a, _) -> {
+      var owner = SeqView.of(a.lastCompiled().getFirst().owner);
+      assertEquals(ImmutableSeq.of("hello1", "hello2"), SymbolIndex.search(owner, "hello", 2).map(DefVar::name));
+      assertEquals("hello3", SymbolIndex.search(owner, "hlo3", 10).getFirst().name());
+      assertEquals("Nat", SymbolIndex.search(owner, "nat", 10).getFirst().name());
+      assertEquals("hello1", SymbolIndex.search(owner, "HelloWorld::hello1", 10).getFirst().name());
+      assertTrue(SymbolIndex.search(owner, "zzz", 10).isEmpty());
+    }));
+  }
+
+  private static @NotNull String posKey(@NotNull SourcePos pos) {
+    return pos.file().display() + ":" + pos.tokenStartIndex() + "-" + pos.tokenEndIndex();
+  }
+
   private void duplicateRegisterTester(int count, @NotNull ProjectPath check, @NotNull AyaLanguageServer lsp) {
     assertEquals(count, lsp.libraries().size());
     assertNotNull(lsp.getRegisteredLibrary(check));
@@ -0,0 +1,51 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.ide;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import org.aya.cli.library.source.LibrarySource;
+import org.aya.syntax.concrete.stmt.Stmt;
+import org.aya.syntax.concrete.stmt.StmtVisitor;
+import org.aya.syntax.ref.AnyVar;
+import org.aya.syntax.ref.DefVar;
+import org.aya.syntax.ref.QName;
+import org.aya.util.position.SourcePos;
+import org.jetbrains.annotations.NotNull;
+
+/// An inverted index from variables to the positions they are referred in a [LibrarySource],
+/// so that [org.aya.ide.action.FindReferences] does not traverse every program on each request.
+public final class ReferenceIndex {
+  /// Same as [Resolver.UsageResolver], but for all variables at once
+  private record Collector(@NotNull MutableMap<Object, MutableList<SourcePos>> refs) implements StmtVisitor {
+    @Override public void visitVarRef(@NotNull SourcePos pos, @NotNull AnyVar var, @NotNull Type type) {
+      refs.getOrPut(key(var), MutableList::create).append(pos);
+    }
+  }
+
+  private static final @NotNull SourceCache<ImmutableMap<Object, ImmutableSeq<SourcePos>>> CACHE =
+    new SourceCache<>(ReferenceIndex::collect);
+
+  private ReferenceIndex() { }
+
+  /// Imported definitions may be deserialized ones, so definitions are compared by qualified names
+  private static @NotNull Object key(@NotNull AnyVar var) {
+    return var instanceof DefVar<?, ?> def && def.module != null ? new QName(def) : var;
+  }
+
+  /// @return the positions where {@param var} is referred in {@param source}, in the order of appearance
+  public static @NotNull ImmutableSeq<SourcePos> refs(@NotNull LibrarySource source, @NotNull AnyVar var) {
+    var refs = CACHE.get(source);
+    return refs == null ? ImmutableSeq.empty() : refs.getOrDefault(key(var), ImmutableSeq.empty());
+  }
+
+  private static @NotNull ImmutableMap<Object, ImmutableSeq<SourcePos>> collect(@NotNull ImmutableSeq<Stmt> program) {
+    var collector = new Collector(MutableMap.create());
+    program.forEach(collector);
+    var refs = MutableMap.<Object, ImmutableSeq<SourcePos>>create();
+    collector.refs.forEach((key, positions) -> refs.put(key, positions.toSeq()));
+    return ImmutableMap.from(refs);
+  }
+}
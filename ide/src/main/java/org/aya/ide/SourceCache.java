@@ -0,0 +1,46 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.ide;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.cli.library.source.LibrarySource;
+import org.aya.resolve.ResolveInfo;
+import org.aya.syntax.concrete.stmt.Stmt;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/// Something computed from the program of each [LibrarySource], like the indices used by the language server.
+///
+/// The value of a source is computed the first time it is asked for, and is kept until the source
+/// is parsed or resolved again, so after an incremental compilation only the affected sources
+/// are visited again. The sources that are not resolved yet are not cached, as they may still be resolved in place.
+///
+/// @see ReferenceIndex
+/// @see SymbolIndex
+public final class SourceCache<T> {
+  private record Entry<T>(@NotNull ImmutableSeq<Stmt> program, @NotNull ResolveInfo resolveInfo, @NotNull T value) { }
+
+  private final @NotNull WeakHashMap<LibrarySource, Entry<T>> entries = new WeakHashMap<>();
+  private final @NotNull Function<ImmutableSeq<Stmt>, T> compute;
+
+  public SourceCache(@NotNull Function<ImmutableSeq<Stmt>, T> compute) { this.compute = compute; }
+
+  /// @return null if {@param source} is not parsed
+  public @Nullable T get(@NotNull LibrarySource source) {
+    var program = source.program();
+    if (program == null) return null;
+    var resolveInfo = source.resolveInfo();
+    synchronized (entries) {
+      var entry = entries.get(source);
+      if (entry != null && entry.program == program && entry.resolveInfo == resolveInfo) return entry.value;
+    }
+    var value = compute.apply(program);
+    if (resolveInfo != null) synchronized (entries) {
+      entries.put(source, new Entry<>(program, resolveInfo, value));
+    }
+    return value;
+  }
+}
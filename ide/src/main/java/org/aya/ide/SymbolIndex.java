@@ -0,0 +1,108 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.ide;
+
+import kala.collection.CollectionView;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableSet;
+import org.aya.cli.library.source.LibraryOwner;
+import org.aya.ide.syntax.SyntaxDeclAction;
+import org.aya.syntax.concrete.stmt.Stmt;
+import org.aya.syntax.concrete.stmt.decl.Decl;
+import org.aya.syntax.ref.DefVar;
+import org.aya.syntax.ref.QName;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/// An index of the definitions in each [org.aya.cli.library.source.LibrarySource] for workspace symbol search.
+/// The names are matched fuzzily, see [#rank].
+public final class SymbolIndex {
+  /// @param name      in lower case
+  /// @param qualified in lower case, like `nat::core::nat`
+  private record Entry(@NotNull DefVar<?, ?> ref, @NotNull String name, @NotNull String qualified) {
+    private Entry(@NotNull DefVar<?, ?> ref) {
+      this(ref, lower(ref.name()), lower(ref.module != null ? new QName(ref).toString() : ref.name()));
+    }
+  }
+
+  private record Match(@NotNull Entry entry, int rank) { }
+
+  private record Collector(@NotNull MutableList<Entry> entries) implements SyntaxDeclAction {
+    @Override public void accept(@NotNull Stmt stmt) {
+      if (stmt instanceof Decl decl) Resolver.withChildren(decl).forEach(ref -> entries.append(new Entry(ref)));
+      SyntaxDeclAction.super.accept(stmt);
+    }
+  }
+
+  private static final @NotNull SourceCache<ImmutableSeq<Entry>> CACHE = new SourceCache<>(program -> {
+    var collector = new Collector(MutableList.create());
+    program.forEach(collector);
+    return collector.entries.toSeq();
+  });
+
+  private SymbolIndex() { }
+
+  private static @NotNull String lower(@NotNull String name) { return name.toLowerCase(Locale.ROOT); }
+
+  /// @param query matched against the qualified names if it contains `::`, otherwise against the names
+  /// @return at most {@param limit} definitions, the better matches come first
+  public static @NotNull ImmutableSeq<DefVar<?, ?>> search(
+    @NotNull CollectionView<LibraryOwner> libraries,
+    @NotNull String query, int limit
+  ) {
+    var lowerQuery = lower(query);
+    var qualified = query.contains("::");
+    var matches = MutableList.<Match>create();
+    var visited = MutableSet.<LibraryOwner>create();
+    libraries.forEach(lib -> collect(lib, visited, entry -> {
+      var rank = rank(qualified ? entry.qualified : entry.name, lowerQuery);
+      if (rank >= 0) matches.append(new Match(entry, rank));
+    }));
+    return matches.view()
+      .sorted(Comparator.comparingInt(Match::rank)
+        .thenComparingInt(m -> m.entry.name.length())
+        .thenComparing(m -> m.entry.name))
+      .take(limit)
+      .map(m -> m.entry.ref)
+      .toSeq();
+  }
+
+  /// A library may be a dependency of many others, but is only visited once
+  private static void collect(
+    @NotNull LibraryOwner owner, @NotNull MutableSet<LibraryOwner> visited,
+    @NotNull Consumer<Entry> consumer
+  ) {
+    if (visited.contains(owner)) return;
+    visited.add(owner);
+    owner.librarySources().forEach(src -> {
+      var entries = CACHE.get(src);
+      if (entries != null) entries.forEach(consumer);
+    });
+    owner.libraryDeps().forEach(dep -> collect(dep, visited, consumer));
+  }
+
+  /// @param name  in lower case
+  /// @param query in lower case
+  /// @return lower is better, or -1 if {@param name} does not match:
+  ///         * 0 if they are the same, 1 if {@param query} is a prefix, 2 if it is a substring
+  ///         * otherwise, if the characters of {@param query} appear in {@param name} in order,
+  ///           3 plus the number of gaps between them
+  static int rank(@NotNull String name, @NotNull String query) {
+    if (name.equals(query)) return 0;
+    if (name.startsWith(query)) return 1;
+    if (name.contains(query)) return 2;
+    var gaps = 0;
+    var last = -1;
+    for (int i = 0; i < query.length(); i++) {
+      var found = name.indexOf(query.charAt(i), last + 1);
+      if (found < 0) return -1;
+      if (last >= 0 && found != last + 1) gaps++;
+      last = found;
+    }
+    return 3 + gaps;
+  }
+}
@@ -4,9 +4,9 @@ package org.aya.ide.action;
 
 import kala.collection.CollectionView;
 import kala.collection.SeqView;
-import kala.collection.mutable.MutableList;
 import org.aya.cli.library.source.LibraryOwner;
 import org.aya.cli.library.source.LibrarySource;
+import org.aya.ide.ReferenceIndex;
 import org.aya.ide.Resolver;
 import org.aya.ide.util.XY;
 import org.aya.syntax.ref.AnyVar;
@@ -28,10 +28,7 @@ public interface FindReferences {
     @NotNull SeqView<AnyVar> vars,
     @NotNull CollectionView<LibraryOwner> libraries
   ) {
-    return vars.flatMap(var -> {
-      var resolver = new Resolver.UsageResolver(var, MutableList.create());
-      return libraries.flatMap(lib -> resolve(resolver, lib));
-    });
+    return vars.flatMap(var -> libraries.flatMap(lib -> resolve(var, lib)));
   }
 
   static @NotNull SeqView<SourcePos> findRefsOutsideDefs(
@@ -59,9 +56,8 @@ public interface FindReferences {
     return defs.concat(refs);
   }
 
-  private static @NotNull SeqView<SourcePos> resolve(@NotNull Resolver.UsageResolver resolver, @NotNull LibraryOwner owner) {
-    owner.librarySources().map(LibrarySource::program).filterNotNull()
-      .forEach(prog -> prog.forEach(resolver));
-    return resolver.collect().view().concat(owner.libraryDeps().flatMap(dep -> resolve(resolver, dep)));
+  private static @NotNull SeqView<SourcePos> resolve(@NotNull AnyVar var, @NotNull LibraryOwner owner) {
+    return owner.librarySources().flatMap(src -> ReferenceIndex.refs(src, var))
+      .concat(owner.libraryDeps().flatMap(dep -> resolve(var, dep)));
   }
 }
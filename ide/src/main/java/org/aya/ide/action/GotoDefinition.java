@@ -43,7 +43,7 @@ public interface GotoDefinition {
   private static @Nullable SourcePos mockSourcePos(@NotNull CollectionView<LibraryOwner> libraries, @NotNull ModuleVar moduleVar) {
     return Resolver.resolveModule(libraries, new ModulePath(moduleVar.path().ids()))
       .map(src -> src.originalFile(""))
-      .map(src -> new SourcePos(src, 0, 0, 1, 0, 1, 0))
+      .map(src -> new SourcePos(src, 0, 0))
       .getOrNull();
   }
 }
@@ -2,10 +2,8 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.ide.action;
 
-import kala.collection.CollectionView;
 import kala.collection.immutable.ImmutableSeq;
 import kala.collection.mutable.MutableList;
-import org.aya.cli.library.source.LibraryOwner;
 import org.aya.cli.library.source.LibrarySource;
 import org.aya.cli.literate.HighlightInfo;
 import org.aya.cli.literate.SyntaxHighlight;
@@ -30,17 +28,6 @@ public record ProjectSymbol(
     return symbol.symbols.toSeq();
   }
 
-  public static @NotNull ImmutableSeq<Symbol> invoke(@NotNull PrettierOptions options, @NotNull CollectionView<LibraryOwner> libraries) {
-    var symbol = new ProjectSymbol(options, MutableList.create());
-    libraries.forEach(symbol::collectLib);
-    return symbol.symbols.toSeq();
-  }
-
-  private void collectLib(@NotNull LibraryOwner owner) {
-    owner.librarySources().forEach(this::collectSource);
-    owner.libraryDeps().forEach(this::collectLib);
-  }
-
   private void collectSource(@NotNull LibrarySource src) {
     var program = src.program();
     if (program != null) program.forEach(this);
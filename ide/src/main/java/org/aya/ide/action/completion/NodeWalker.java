@@ -65,7 +65,7 @@ public final class NodeWalker {
     while (low <= high) {
       int mid = (low + high) >>> 1;
       var node = nodes.get(mid);
-      var range = SourcePos.of(node.range(), file, false);
+      var range = SourcePos.of(node.range(), file);
       var cmp = -range.compareVisually(location.x(), location.y());
 
       if (cmp == 0) return mid;
@@ -36,10 +36,11 @@ import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.EnumMap;
 
-/// The .ayac file representation.
+/// The .ayac file representation, see [CompiledModuleFormat] for the binary format.
 ///
 /// @param moduleExport the module export of this file level module
 /// @param importOpen all module that is imported and opened by this file level module, this is kinda tricky, see [ResolveInfo#open]
@@ -53,8 +54,21 @@ public record CompiledModule(
   @NotNull ImmutableMap<QName, SerBind> serOps,
   @NotNull EnumMap<PrimDef.ID, QName> primDefs,
   @NotNull ImmutableMap<QName, SerRenamedOp> opRename
-) implements Serializable {
+) {
   public record DeState(@NotNull ClassLoader loader) {
+    /// The `INSTANCE` of each compiled class, looked up by a [MethodHandle] once per class
+    private static final ClassValue<Object> INSTANCES = new ClassValue<>() {
+      @Override protected Object computeValue(@NotNull Class<?> type) {
+        try {
+          return MethodHandles.publicLookup()
+            .findStaticGetter(type, AyaSerializer.STATIC_FIELD_INSTANCE, type)
+            .invoke();
+        } catch (Throwable e) {
+          throw new Panic(e);
+        }
+      }
+    };
+
     public @NotNull Class<?> topLevelClass(@NotNull ModulePath name) {
       try {
         return loader.loadClass(NameSerializer.getModuleClassName(QPath.fileLevel(name)));
@@ -70,21 +84,13 @@ public record CompiledModule(
         throw new Panic(e);
       }
     }
-    private static Object getJitDef(Class<?> clazz) {
-      try {
-        var fieldInstance = clazz.getField(AyaSerializer.STATIC_FIELD_INSTANCE);
-        fieldInstance.setAccessible(true);
-        return fieldInstance.get(null);
-      } catch (NoSuchFieldException | IllegalAccessException e) {
-        throw new Panic(e);
-      }
-    }
+    private static Object getJitDef(Class<?> clazz) { return INSTANCES.get(clazz); }
   }
 
   record SerModuleExport(
     @NotNull ImmutableMap<String, QName> symbols,
     @NotNull ImmutableMap<ModuleName.Qualified, QPath> modules
-  ) implements Serializable, AyaDocile {
+  ) implements AyaDocile {
     @Override
     public @NotNull Doc toDoc(@NotNull PrettierOptions options) {
       var docs = MutableList.<Doc>create();
@@ -103,15 +109,15 @@ public record CompiledModule(
     }
   }
 
-  record SerImportOpen(@NotNull ModulePath path, boolean isPublic) implements Serializable {
+  record SerImportOpen(@NotNull ModulePath path, boolean isPublic) {
 
   }
 
-  record SerBind(@NotNull ImmutableSeq<QName> loosers, @NotNull ImmutableSeq<QName> tighters) implements Serializable {
+  record SerBind(@NotNull ImmutableSeq<QName> loosers, @NotNull ImmutableSeq<QName> tighters) {
     public static final SerBind EMPTY = new SerBind(ImmutableSeq.empty(), ImmutableSeq.empty());
   }
 
-  record SerRenamedOp(@NotNull OpDecl.OpInfo info, @NotNull SerBind bind) implements Serializable { }
+  record SerRenamedOp(@NotNull OpDecl.OpInfo info, @NotNull SerBind bind) { }
 
   public static @NotNull CompiledModule from(@NotNull ResolveInfo resolveInfo, @NotNull ImmutableSeq<TyckDef> defs) {
     if (!(resolveInfo.thisModule() instanceof PhysicalModuleContext ctx)) {
@@ -195,18 +201,18 @@ public record CompiledModule(
     public final @NotNull MutableMap<ModulePath, ResolveInfo> cache = MutableMap.create();
     // all deserialized submodule in this file level module
     public final @NotNull MutableMap<ModuleName.Qualified, ModuleExport> subModules = MutableMap.create();
-    public final @NotNull ImmutableMap<QName, JitDef> thisDefs;
+    public final @NotNull ImmutableMap<QName, CompiledVar> thisDefs;
 
     public MyModuleLoader(
       @NotNull ModuleLoader loader,
       @NotNull DeState state,
       @NotNull ModulePath thisModulePath,
-      @NotNull ImmutableSeq<JitDef> thisDefs
+      @NotNull ImmutableMap<QName, CompiledVar> thisDefs
     ) {
       this.loader = loader;
       this.state = state;
       this.thisModulePath = thisModulePath;
-      this.thisDefs = thisDefs.associateBy(JitUnit::qualifiedName);
+      this.thisDefs = thisDefs;
     }
 
     private @NotNull ModuleExport loadFileLevel(@NotNull QPath path) {
@@ -246,7 +252,7 @@ public record CompiledModule(
     /// Load any public definition
     public @NotNull CompiledVar load(@NotNull QName name) {
       if (name.module().fileModule().equals(thisModulePath)) {
-        return new CompiledVar(this.thisDefs.get(name));      // should not fail
+        return this.thisDefs.get(name);      // should not fail
       }
 
       // sanity check, even we can just return a AnyDefVar
@@ -340,16 +346,23 @@ public record CompiledModule(
     @NotNull PrimFactory primFactory, @NotNull ShapeFactory shapeFactory, @NotNull Reporter reporter
   ) {
     var resolveInfo = new ResolveInfo(context, primFactory, shapeFactory, new AyaBinOpSet(reporter));
-    var allDefs = MutableList.<JitDef>create();
+    var allDefs = MutableMap.<QName, CompiledVar>create();
     var rootClass = state.topLevelClass(context.modulePath());
+    // Only the metadata is read here, the classes are initialized when the definitions are first used,
+    // except for those that have to be registered as shapes or primitives.
     for (var jitClass : rootClass.getDeclaredClasses()) {
-      var object = DeState.getJitDef(jitClass);
-      if (!(object instanceof JitDef jitDef)) continue;
-      allDefs.append(jitDef);
-      loadDefInfo(primFactory, shapeFactory, jitDef);
+      if (!JitDef.class.isAssignableFrom(jitClass)) continue;
+      var metadata = jitClass.getAnnotation(AyaMetadata.class);
+      if (metadata == null) throw new Panic("No @AyaMetadata on " + jitClass.getName());
+      var module = new ModulePath(ImmutableSeq.from(metadata.module()));
+      var qname = new QName(new QPath(module, metadata.fileModuleSize()), metadata.name());
+      var ref = CompiledVar.lazy(qname, () -> (JitDef) DeState.getJitDef(jitClass));
+      allDefs.put(qname, ref);
+      if (metadata.shape() != -1 || JitPrim.class.isAssignableFrom(jitClass))
+        loadDefInfo(primFactory, shapeFactory, ref.core());
     }
 
-    var myLoader = new MyModuleLoader(loader, state, context.modulePath(), allDefs.toSeq());
+    var myLoader = new MyModuleLoader(loader, state, context.modulePath(), ImmutableMap.from(allDefs));
     var root = deserializeModuleExport(context.qualifiedPath(),
       myLoader, this.moduleExport);
 
@@ -0,0 +1,311 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.compiler;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableLinkedHashMap;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import org.aya.compiler.CompiledModule.*;
+import org.aya.syntax.concrete.stmt.ModuleName;
+import org.aya.syntax.core.def.PrimDef;
+import org.aya.syntax.ref.ModulePath;
+import org.aya.syntax.ref.QName;
+import org.aya.syntax.ref.QPath;
+import org.aya.util.binop.Assoc;
+import org.aya.util.binop.OpDecl;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.function.Consumer;
+
+/// The binary format of .ayac files, which is a [CompiledModule] laid out as:
+///
+/// ```
+/// file    = MAGIC VERSION strings paths qnames exports imports ops prims renames
+/// section = length:int bytes[length]
+/// strings = section { count:int (length:int utf8[length])* }
+/// paths   = section { count:int (size:int string*)* }
+/// qnames  = section { count:int (path fileModuleSize:int string)* }
+/// ```
+///
+/// where `string`, `path` and `qname` are indices into the constant pools above,
+/// and enums are stored by name so that reordering their constants doesn't break old files.
+/// All the sections are length-prefixed, so a reader can skip the ones it doesn't care about.
+///
+/// Bump [#VERSION] whenever the layout changes, files of other versions are considered out of date,
+/// see [#isCurrent].
+public final class CompiledModuleFormat {
+  public static final int MAGIC = 0x41594143; // AYAC
+  public static final int VERSION = 1;
+
+  private CompiledModuleFormat() { }
+
+  public static void write(@NotNull CompiledModule module, @NotNull Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    Files.write(path, write(module));
+  }
+
+  public static byte @NotNull [] write(@NotNull CompiledModule module) {
+    return new Writer().write(module);
+  }
+
+  /// Read a .ayac file at once, the file is not kept open after this returns.
+  public static @NotNull CompiledModule read(@NotNull Path path) throws IOException {
+    return read(ByteBuffer.wrap(Files.readAllBytes(path)));
+  }
+
+  public static @NotNull CompiledModule read(@NotNull ByteBuffer buffer) throws IOException {
+    try {
+      return new Reader(buffer).read();
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new IOException("Malformed compiled aya", e);
+    }
+  }
+
+  /// @return true if {@param path} starts with the header of this version of the format
+  public static boolean isCurrent(@NotNull Path path) {
+    try (var input = Files.newInputStream(path)) {
+      var header = ByteBuffer.wrap(input.readNBytes(8));
+      return header.remaining() == 8 && header.getInt() == MAGIC && header.getInt() == VERSION;
+    } catch (IOException _) {
+      return false;
+    }
+  }
+
+  private static final class Writer {
+    private final @NotNull MutableMap<String, Integer> strings = MutableLinkedHashMap.of();
+    private final @NotNull MutableMap<ModulePath, Integer> paths = MutableLinkedHashMap.of();
+    private final @NotNull MutableMap<QName, Integer> qnames = MutableLinkedHashMap.of();
+
+    private int string(@NotNull String s) { return strings.getOrPut(s, strings::size); }
+    private int path(@NotNull ModulePath p) {
+      var index = paths.getOrNull(p);
+      if (index != null) return index;
+      // strings of the path must be pooled, but the path itself is not written yet
+      p.module().forEach(this::string);
+      return paths.getOrPut(p, paths::size);
+    }
+    private int qname(@NotNull QName name) {
+      var index = qnames.getOrNull(name);
+      if (index != null) return index;
+      path(name.module().module());
+      string(name.name());
+      return qnames.getOrPut(name, qnames::size);
+    }
+
+    public byte @NotNull [] write(@NotNull CompiledModule module) {
+      // The body is written first to fill the constant pools
+      var exports = section(out -> {
+        out.writeInt(module.moduleExport().size());
+        module.moduleExport().forEach((name, export) -> {
+          strings(out, name.ids());
+          out.writeInt(export.symbols().size());
+          export.symbols().forEach((symbol, def) -> {
+            out.writeInt(string(symbol));
+            out.writeInt(qname(def));
+          });
+          out.writeInt(export.modules().size());
+          export.modules().forEach((modName, modPath) -> {
+            strings(out, modName.ids());
+            out.writeInt(path(modPath.module()));
+            out.writeInt(modPath.fileModuleSize());
+          });
+        });
+      });
+      var imports = section(out -> {
+        out.writeInt(module.importOpen().size());
+        module.importOpen().forEach(importOpen -> {
+          out.writeInt(path(importOpen.path()));
+          out.writeBoolean(importOpen.isPublic());
+        });
+      });
+      var ops = section(out -> {
+        out.writeInt(module.serOps().size());
+        module.serOps().forEach((name, serBind) -> {
+          out.writeInt(qname(name));
+          bind(out, serBind);
+        });
+      });
+      var prims = section(out -> {
+        out.writeInt(module.primDefs().size());
+        module.primDefs().forEach((id, name) -> {
+          out.writeInt(string(id.name()));
+          out.writeInt(qname(name));
+        });
+      });
+      var renames = section(out -> {
+        out.writeInt(module.opRename().size());
+        module.opRename().forEach((name, renamed) -> {
+          out.writeInt(qname(name));
+          out.writeInt(string(renamed.info().name()));
+          out.writeInt(string(renamed.info().assoc().name()));
+          bind(out, renamed.bind());
+        });
+      });
+
+      var stringPool = section(out -> {
+        out.writeInt(strings.size());
+        strings.keysView().forEach(s -> {
+          var bytes = s.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.writeBytes(bytes);
+        });
+      });
+      var pathPool = section(out -> {
+        out.writeInt(paths.size());
+        paths.keysView().forEach(p -> strings(out, p.module()));
+      });
+      var qnamePool = section(out -> {
+        out.writeInt(qnames.size());
+        qnames.keysView().forEach(q -> {
+          out.writeInt(path(q.module().module()));
+          out.writeInt(q.module().fileModuleSize());
+          out.writeInt(string(q.name()));
+        });
+      });
+
+      var out = new Output();
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      ImmutableSeq.of(stringPool, pathPool, qnamePool, exports, imports, ops, prims, renames).forEach(section -> {
+        out.writeInt(section.length);
+        out.writeBytes(section);
+      });
+      return out.toByteArray();
+    }
+
+    private void strings(@NotNull Output out, @NotNull ImmutableSeq<String> ids) {
+      out.writeInt(ids.size());
+      ids.forEach(id -> out.writeInt(string(id)));
+    }
+
+    private void bind(@NotNull Output out, @NotNull SerBind bind) {
+      out.writeInt(bind.loosers().size());
+      bind.loosers().forEach(looser -> out.writeInt(qname(looser)));
+      out.writeInt(bind.tighters().size());
+      bind.tighters().forEach(tighter -> out.writeInt(qname(tighter)));
+    }
+
+    private static byte @NotNull [] section(@NotNull Consumer<Output> writer) {
+      var out = new Output();
+      writer.accept(out);
+      return out.toByteArray();
+    }
+  }
+
+  /// A big-endian output that never fails, just like [java.io.DataOutputStream] over a [ByteArrayOutputStream]
+  private static final class Output extends ByteArrayOutputStream {
+    public void writeInt(int i) {
+      write(i >>> 24);
+      write(i >>> 16);
+      write(i >>> 8);
+      write(i);
+    }
+    public void writeBoolean(boolean b) { write(b ? 1 : 0); }
+  }
+
+  private static final class Reader {
+    private final @NotNull ByteBuffer buffer;
+    private String[] strings;
+    private ModulePath[] paths;
+    private QName[] qnames;
+
+    private Reader(@NotNull ByteBuffer buffer) { this.buffer = buffer; }
+
+    public @NotNull CompiledModule read() throws IOException {
+      if (buffer.getInt() != MAGIC) throw new IOException("Not a compiled aya");
+      var version = buffer.getInt();
+      if (version != VERSION) throw new IOException("Unsupported compiled aya version: " + version);
+
+      var pool = section();
+      strings = new String[pool.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        var bytes = new byte[pool.getInt()];
+        pool.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+      var pathPool = section();
+      paths = new ModulePath[pathPool.getInt()];
+      for (int i = 0; i < paths.length; i++) paths[i] = new ModulePath(strings(pathPool));
+      var qnamePool = section();
+      qnames = new QName[qnamePool.getInt()];
+      for (int i = 0; i < qnames.length; i++) {
+        var path = new QPath(paths[qnamePool.getInt()], qnamePool.getInt());
+        qnames[i] = new QName(path, strings[qnamePool.getInt()]);
+      }
+
+      var exportSection = section();
+      var moduleExport = MutableMap.<ModuleName, SerModuleExport>create();
+      for (int i = exportSection.getInt(); i > 0; i--) {
+        var name = ModuleName.from(strings(exportSection));
+        var symbols = MutableMap.<String, QName>create();
+        for (int j = exportSection.getInt(); j > 0; j--)
+          symbols.put(strings[exportSection.getInt()], qnames[exportSection.getInt()]);
+        var modules = MutableMap.<ModuleName.Qualified, QPath>create();
+        for (int j = exportSection.getInt(); j > 0; j--) {
+          var modName = ModuleName.qualified(strings(exportSection));
+          modules.put(modName, new QPath(paths[exportSection.getInt()], exportSection.getInt()));
+        }
+        moduleExport.put(name, new SerModuleExport(ImmutableMap.from(symbols), ImmutableMap.from(modules)));
+      }
+
+      var importSection = section();
+      var importOpen = MutableList.<SerImportOpen>create();
+      for (int i = importSection.getInt(); i > 0; i--)
+        importOpen.append(new SerImportOpen(paths[importSection.getInt()], importSection.get() != 0));
+
+      var opSection = section();
+      var serOps = MutableMap.<QName, SerBind>create();
+      for (int i = opSection.getInt(); i > 0; i--) serOps.put(qnames[opSection.getInt()], bind(opSection));
+
+      var primSection = section();
+      var primDefs = new EnumMap<PrimDef.ID, QName>(PrimDef.ID.class);
+      for (int i = primSection.getInt(); i > 0; i--)
+        primDefs.put(PrimDef.ID.valueOf(strings[primSection.getInt()]), qnames[primSection.getInt()]);
+
+      var renameSection = section();
+      var opRename = MutableMap.<QName, SerRenamedOp>create();
+      for (int i = renameSection.getInt(); i > 0; i--) {
+        var name = qnames[renameSection.getInt()];
+        var info = new OpDecl.OpInfo(strings[renameSection.getInt()], Assoc.valueOf(strings[renameSection.getInt()]));
+        opRename.put(name, new SerRenamedOp(info, bind(renameSection)));
+      }
+
+      return new CompiledModule(ImmutableMap.from(moduleExport), importOpen.toSeq(),
+        ImmutableMap.from(serOps), primDefs, ImmutableMap.from(opRename));
+    }
+
+    /// @return a view of the next section, and skip it in [#buffer]
+    private @NotNull ByteBuffer section() {
+      var length = buffer.getInt();
+      var section = buffer.slice(buffer.position(), length);
+      buffer.position(buffer.position() + length);
+      return section;
+    }
+
+    private @NotNull ImmutableSeq<String> strings(@NotNull ByteBuffer in) {
+      var size = in.getInt();
+      var ids = new String[size];
+      for (int i = 0; i < size; i++) ids[i] = strings[in.getInt()];
+      return ImmutableSeq.from(ids);
+    }
+
+    private @NotNull SerBind bind(@NotNull ByteBuffer in) {
+      var loosers = MutableList.<QName>create();
+      for (int i = in.getInt(); i > 0; i--) loosers.append(qnames[in.getInt()]);
+      var tighters = MutableList.<QName>create();
+      for (int i = in.getInt(); i > 0; i--) tighters.append(qnames[in.getInt()]);
+      if (loosers.isEmpty() && tighters.isEmpty()) return SerBind.EMPTY;
+      return new SerBind(loosers.toSeq(), tighters.toSeq());
+    }
+  }
+}
@@ -0,0 +1,110 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.compiler;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.constantpool.ClassEntry;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+
+/// Defines the classes in an [AsmOutputCollector.Default] without writing them to disk.
+///
+/// A class that is not in the output is looked up in {@link #visible}, which maps class names
+/// to the loaders of the classes generated before, then in {@link #fallbacks}, then in the parent.
+/// Only the classes referred by the constant pools of the output are kept in {@link #visible},
+/// so a loader only keeps the loaders of the classes it refers to alive, and once a class is
+/// generated again (like a redefinition in the REPL), the loader of its old version can be unloaded.
+public final class MemoryClassLoader extends ClassLoader {
+  private final @NotNull ImmutableMap<String, byte[]> classes;
+  /// The classes referred by {@link #classes}, excluding themselves
+  private final @NotNull ImmutableSeq<String> references;
+  private final @NotNull ImmutableMap<String, ClassLoader> visible;
+  private final @NotNull ImmutableSeq<ClassLoader> fallbacks;
+
+  public MemoryClassLoader(
+    @NotNull AsmOutputCollector.Default output,
+    @NotNull ImmutableMap<String, ClassLoader> visible,
+    @NotNull ImmutableSeq<ClassLoader> fallbacks,
+    @NotNull ClassLoader parent
+  ) {
+    super(parent);
+    var classes = MutableMap.<String, byte[]>create();
+    output.output().forEach((path, bytes) -> classes.put(binaryName(path), bytes));
+    this.classes = ImmutableMap.from(classes);
+    var references = new LinkedHashSet<String>();
+    for (var bytes : classes.valuesView()) {
+      for (var entry : ClassFile.of().parse(bytes).constantPool()) {
+        if (!(entry instanceof ClassEntry classEntry)) continue;
+        var name = className(classEntry.asInternalName());
+        if (name != null && !classes.containsKey(name)) references.add(name);
+      }
+    }
+    this.references = ImmutableSeq.from(references);
+    var referredVisible = MutableMap.<String, ClassLoader>create();
+    this.references.forEach(name -> {
+      var loader = visible.getOrNull(name);
+      if (loader != null) referredVisible.put(name, loader);
+    });
+    this.visible = ImmutableMap.from(referredVisible);
+    this.fallbacks = fallbacks;
+  }
+
+  /// @param internalName see [ClassEntry#asInternalName]
+  /// @return the binary name of the class, or of the element class of an array, null for arrays of primitives
+  private static @Nullable String className(@NotNull String internalName) {
+    if (internalName.startsWith("[")) {
+      // array of primitives, or `[Lfoo/Bar;`
+      var element = internalName.lastIndexOf('[') + 1;
+      if (internalName.charAt(element) != 'L') return null;
+      internalName = internalName.substring(element + 1, internalName.length() - 1);
+    }
+    return internalName.replace('/', '.');
+  }
+
+  /// @param path see [AsmOutputCollector.Default#getPath]
+  private static @NotNull String binaryName(@NotNull Path path) {
+    var name = path.toString().replace(path.getFileSystem().getSeparator(), ".");
+    return name.substring(0, name.length() - ".class".length());
+  }
+
+  /// @return the names of the classes defined by this loader
+  public @NotNull ImmutableSeq<String> classNames() { return classes.keysView().toSeq(); }
+  /// @return the loaders of the classes generated before that are referred by this loader
+  public @NotNull ImmutableSeq<ClassLoader> visibleLoaders() { return visible.valuesView().distinct().toSeq(); }
+
+  @Override protected @NotNull Class<?> findClass(@NotNull String name) throws ClassNotFoundException {
+    var bytes = classes.getOrNull(name);
+    if (bytes != null) return defineClass(name, bytes, 0, bytes.length);
+    var loader = visible.getOrNull(name);
+    if (loader != null) return loader.loadClass(name);
+    for (var fallback : fallbacks) {
+      try {
+        return fallback.loadClass(name);
+      } catch (ClassNotFoundException _) {
+        // try the next one
+      }
+    }
+    throw new ClassNotFoundException(name);
+  }
+
+  /// The generated code refers to the classes of every definition it uses, and these are resolved lazily,
+  /// so a definition that is not compiled would only be noticed when the code runs.
+  ///
+  /// @return the name of a class referred by the generated code that cannot be loaded, or null if there is none
+  public @Nullable String missingClass() {
+    for (var name : references) {
+      try {
+        loadClass(name);
+      } catch (ClassNotFoundException | LinkageError _) {
+        return name;
+      }
+    }
+    return null;
+  }
+}
@@ -103,6 +103,10 @@ public class TermSerializer extends AbstractExprSerializer<Term> {
         getInstance(conRule.ref()),
         doSerialize(conRule.empty())
       ));
+      case ListOps.FnRule fnRule -> builder.mkNew(ListOps.FnRule.class, ImmutableSeq.of(
+        getInstance(fnRule.ref()),
+        builder.refEnum(fnRule.kind())
+      ));
       default -> Panic.unreachable();
     };
   }
@@ -177,16 +181,16 @@ public class TermSerializer extends AbstractExprSerializer<Term> {
       case LocalTerm _ when !allowLocalTerm -> throw new Panic("LocalTerm");
       case LocalTerm(var index) -> builder.mkNew(LocalTerm.class, ImmutableSeq.of(new IrExpr.Iconst(index)));
       case LamTerm lamTerm -> builder.mkNew(LAMBDA_NEW, ImmutableSeq.of(serializeClosure(lamTerm.body())));
-      case DataCall(var ref, var ulift, var args) -> builder.mkNew(DataCall.class, ImmutableSeq.of(
-        getInstance(ref),
-        new IrExpr.Iconst(ulift),
-        serializeToImmutableSeq(Term.class, args)
+      case DataCall call -> builder.mkNew(DataCall.class, ImmutableSeq.of(
+        getInstance(call.ref()),
+        new IrExpr.Iconst(call.ulift()),
+        serializeToImmutableSeq(Term.class, call.args())
       ));
-      case ConCall(var head, var args) -> builder.mkNew(ConCall.class, ImmutableSeq.of(
-        getInstance(head.ref()),
-        serializeToImmutableSeq(Term.class, head.ownerArgs()),
-        new IrExpr.Iconst(head.ulift()),
-        serializeToImmutableSeq(Term.class, args)
+      case ConCall call -> builder.mkNew(ConCall.class, ImmutableSeq.of(
+        getInstance(call.head().ref()),
+        serializeToImmutableSeq(Term.class, call.head().ownerArgs()),
+        new IrExpr.Iconst(call.head().ulift()),
+        serializeToImmutableSeq(Term.class, call.conArgs())
       ));
       // Assumption: `term.tailCall() == true` implies `unit == term.ref()`
       case FnCall call when argTerms != null && call.tailCall() -> {
@@ -196,15 +200,18 @@ public class TermSerializer extends AbstractExprSerializer<Term> {
         // * [call] is the let body of some let which is the body of [unit]
         // thus the returned [AstVariable] is used by caller, and we can return a dummy caller as long as the caller never uses it.
         assert argTerms.size() == args.size();
-        // Will cause conflict in theory, but won't in practice due to current local variable
-        // declaration heuristics.
-        argTerms.forEachWith(args, (a, b) ->
-          builder.updateVar(a, new IrExpr.Ref(b)));
+        // The parameters are updated one by one, so an argument that is another parameter
+        // is copied before the update, just like a parallel assignment.
+        var copied = args.mapIndexed((i, arg) -> arg.equals(argTerms.get(i)) || !argTerms.contains(arg)
+          ? arg : builder.bindExpr(Constants.CD_Term, new IrExpr.Ref(arg)));
+        argTerms.forEachWith(copied, (param, arg) -> {
+          if (!param.equals(arg)) builder.updateVar(param, new IrExpr.Ref(arg));
+        });
         builder.continueLoop();
         yield new IrVariable.Local(-1);
       }
-      case FnCall(var ref, var ulift, var args, _) ->
-        buildFnInvoke(NameSerializer.getClassDesc(ref), ulift, args.map(this::doSerialize));
+      case FnCall call ->
+        buildFnInvoke(NameSerializer.getClassDesc(call.ref()), call.ulift(), call.args().map(this::doSerialize));
       case RuleReducer.Con(var rule, int ulift, var ownerArgs, var conArgs) -> {
         var onStuck = builder.mkNew(RuleReducer.Con.class, ImmutableSeq.of(
           serializeApplicable(rule),
@@ -256,14 +263,22 @@ public class TermSerializer extends AbstractExprSerializer<Term> {
         new IrExpr.Iconst(ulift),
         serializeToImmutableSeq(Term.class, args)
       ));
-      case IntegerTerm(var repr, _, _, var type) -> builder.invoke(
-        new MethodRef(
-          NameSerializer.getClassDesc(type.ref()),
-          AyaSerializer.METHOD_MAKE_INTEGER,
-          Constants.CD_IntegerTerm,
-          ImmutableSeq.of(ConstantDescs.CD_int),false),
-        ImmutableSeq.of(new IrExpr.Iconst(repr))
-      );
+      case IntegerTerm(var repr, var big, _, _, var type) -> {
+        var small = builder.invoke(
+          new MethodRef(
+            NameSerializer.getClassDesc(type.ref()),
+            AyaSerializer.METHOD_MAKE_INTEGER,
+            Constants.CD_IntegerTerm,
+            ImmutableSeq.of(ConstantDescs.CD_int),false),
+          ImmutableSeq.of(new IrExpr.Iconst(big == null ? repr : 0))
+        );
+        if (big == null) yield small;
+        // Too big for an `int` constant
+        yield builder.invoke(
+          new MethodRef(Constants.CD_IntegerTerm, "withDecimal", Constants.CD_IntegerTerm,
+            ImmutableSeq.of(ConstantDescs.CD_String), false),
+          small, ImmutableSeq.of(new IrExpr.Sconst(big.toString())));
+      }
       case ListTerm(var repr, var nil, var cons, var type) -> builder.mkNew(ListTerm.class, ImmutableSeq.of(
         makeImmutableSeq(builder, Constants.IMMTREESEQ, Term.class, repr.map(this::doSerialize)),
         getInstance(nil),
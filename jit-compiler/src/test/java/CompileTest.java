@@ -2,6 +2,8 @@
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 
 import kala.collection.immutable.ImmutableSeq;
+import org.aya.compiler.CompiledModule;
+import org.aya.compiler.CompiledModuleFormat;
 import org.aya.compiler.serializers.ModuleSerializer;
 import org.aya.prettier.AyaPrettierOptions;
 import org.aya.producer.AyaParserImpl;
@@ -25,11 +27,13 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.function.UnaryOperator;
 
 import static org.aya.compiler.serializers.NameSerializer.getClassName;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class CompileTest {
   public static final @NotNull @Language("Aya") String SAMPLE_CODE = """
@@ -102,6 +106,32 @@ public class CompileTest {
     }
   }
 
+  @Test public void testCoreFormat() throws IOException {
+    var result = tyck("""
+      prim I
+      open inductive Nat | zro | suc Nat
+      def infixl + (a b : Nat) : Nat
+      | zro, b => b
+      | suc a, b => suc (a + b)
+      def infixl * (a b : Nat) : Nat
+      | zro, b => zro
+      | suc a, b => b + a * b
+        tighter +
+      module Sub {
+        def one : Nat => suc zro
+      }
+      """);
+    var module = CompiledModule.from(result.info, result.defs);
+    var bytes = CompiledModuleFormat.write(module);
+    assertEquals(module, CompiledModuleFormat.read(ByteBuffer.wrap(bytes)));
+
+    var file = GEN_DIR.resolve("core/baka.ayac");
+    CompiledModuleFormat.write(module, file);
+    assertTrue(CompiledModuleFormat.isCurrent(file));
+    assertEquals(module, CompiledModuleFormat.read(file));
+    assertThrows(IOException.class, () -> CompiledModuleFormat.read(ByteBuffer.wrap(bytes, 0, bytes.length / 2)));
+  }
+
   public static TyckResult tyck(@Language("Aya") @NotNull String code) {
     var moduleLoader = new DumbModuleLoader(REPORTER, new EmptyContext(FILE));
     var callback = new ModuleCallback<RuntimeException>() {
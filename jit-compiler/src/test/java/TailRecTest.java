@@ -18,11 +18,12 @@ import java.net.URLClassLoader;
 import java.util.function.UnaryOperator;
 
 import static org.aya.compiler.serializers.NameSerializer.getClassName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 public class TailRecTest {
   private static JitCon O, S;
-  private static JitFn const0, add, mult;
+  private static JitFn const0, add, mult, swap;
   private static DataCall NatCall;
 
   @BeforeAll public static void init() throws IOException {
@@ -48,6 +49,7 @@ public class TailRecTest {
     const0 = tester.loadInstance(getClassName(baka, "const0"));
     add = tester.loadInstance(getClassName(baka, "add"));
     mult = tester.loadInstance(getClassName(baka, "mult"));
+    swap = tester.loadInstance(getClassName(baka, "swap"));
   }
 
   @Test public void basics() {
@@ -71,4 +73,12 @@ public class TailRecTest {
     assertNotNull(term);
     System.out.println(term);
   }
+
+  /// The tail call `swap y x` updates `a` before reading it for `b`
+  @Test public void parallelAssignment() {
+    var two = new IntegerTerm(2, O, S, NatCall);
+    var one = new IntegerTerm(1, O, S, NatCall);
+    var term = swap.invoke(UnaryOperator.identity(), ImmutableSeq.of(two, one));
+    assertEquals(new IntegerTerm(1, O, S, NatCall), term);
+  }
 }
@@ -4,15 +4,24 @@ package org.aya.pretty.backend.string;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 public class Cursor {
   private int cursor;
   private int nestLevel;
   private int lineStartCursor;
-  private final StringBuilder builder = new StringBuilder();
+  private final @NotNull Appendable out;
   private final StringPrinter<?> printer;
 
-  public Cursor(StringPrinter<?> printer) { this.printer = printer; }
-  public @NotNull CharSequence result() { return builder; }
+  public Cursor(StringPrinter<?> printer) { this(printer, new StringBuilder()); }
+  /// The [IOException]s thrown by {@param out} are wrapped in [UncheckedIOException]s
+  public Cursor(StringPrinter<?> printer, @NotNull Appendable out) {
+    this.printer = printer;
+    this.out = out;
+  }
+  /// Only available when the cursor is created by [#Cursor(StringPrinter)]
+  public @NotNull CharSequence result() { return (CharSequence) out; }
   public int getCursor() { return cursor; }
   public int getNestLevel() { return nestLevel; }
 
@@ -23,7 +32,7 @@ public class Cursor {
 
   public void invisibleContent(@NotNull CharSequence content) {
     checkLineStart();
-    builder.append(content);
+    append(content);
   }
 
   public void visibleContent(@NotNull CharSequence content) {
@@ -33,11 +42,19 @@ public class Cursor {
 
   private void checkLineStart() {
     if (isAtLineStart()) {
-      builder.append(printer.makeIndent(nestLevel));
+      append(printer.makeIndent(nestLevel));
       moveForward(nestLevel);
     }
   }
 
+  private void append(@NotNull CharSequence content) {
+    try {
+      out.append(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   /** Do something when I am not at line start. */
   public void whenLineUsed(@NotNull Runnable runnable) {
     if (!isAtLineStart()) runnable.run();
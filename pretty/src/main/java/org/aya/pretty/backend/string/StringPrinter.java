@@ -3,13 +3,17 @@
 package org.aya.pretty.backend.string;
 
 import kala.collection.Map;
+import kala.collection.Seq;
 import kala.tuple.Tuple;
 import org.aya.pretty.doc.Doc;
 import org.aya.pretty.printer.Printer;
 import org.aya.pretty.printer.PrinterConfig;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.function.IntFunction;
 
 import static org.aya.pretty.backend.string.StringPrinterConfig.TextOptions.Unicode;
@@ -31,18 +35,39 @@ public class StringPrinter<Config extends StringPrinterConfig<?>> implements Pri
   public static final @NotNull EnumSet<Outer> FREE = EnumSet.noneOf(Outer.class);
 
   protected Config config;
+  /// Widths of the docs that are measured in [#predictWidth], reset in each [#render]
+  private final @NotNull IdentityHashMap<Doc, Integer> widths = new IdentityHashMap<>();
+  /// Number of measured docs that depend on the cursor, like [Doc.Column], whose widths cannot be memorized
+  private int cursorDependent = 0;
 
   protected @NotNull String makeIndent(int indent) {
     return " ".repeat(indent);
   }
 
   @Override public @NotNull String render(@NotNull Config config, @NotNull Doc doc) {
+    var builder = new StringBuilder();
+    render(config, doc, new Cursor(this, builder));
+    return builder.toString();
+  }
+
+  /// Write the rendered content into {@param out} as the rendering goes,
+  /// so only the content of a single [Doc.Tooltip] is held in memory.
+  /// It is a good idea to buffer {@param out}.
+  @Override public void render(@NotNull Config config, @NotNull Doc doc, @NotNull Appendable out) throws IOException {
+    try {
+      render(config, doc, new Cursor(this, out));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void render(@NotNull Config config, @NotNull Doc doc, @NotNull Cursor cursor) {
     this.config = config;
-    var cursor = new Cursor(this);
+    widths.clear();
     renderHeader(cursor);
     renderDoc(cursor, doc, FREE);
     renderFooter(cursor);
-    return cursor.result().toString();
+    widths.clear();
   }
 
   private int lineRemaining(@NotNull Cursor cursor) {
@@ -50,29 +75,58 @@ public class StringPrinter<Config extends StringPrinterConfig<?>> implements Pri
     return pw == PrinterConfig.INFINITE_SIZE ? pw : pw - cursor.getCursor();
   }
 
-  protected int predictWidth(@NotNull Cursor cursor, @NotNull Doc doc) {
-    return switch (doc) {
+  /**
+   * Predict the width of {@param doc} when it is laid out in a single line,
+   * but stop as soon as it is known to exceed {@param limit}.
+   * The widths of the subtrees that do not depend on the cursor are memorized in {@link #widths},
+   * so the alternatives nested in each other are not measured again and again.
+   *
+   * @return the width if it is no more than {@param limit}, otherwise an arbitrary number greater than {@param limit}
+   */
+  protected int predictWidth(@NotNull Cursor cursor, @NotNull Doc doc, int limit) {
+    var cached = widths.get(doc);
+    if (cached != null) return cached;
+    var dynamic = cursorDependent;
+    var width = switch (doc) {
       case Doc.Empty _, Doc.Line _ -> 0;
       case Doc.PlainText(var text) -> text.length();
       case Doc.EscapedText(var text) -> text.length();
       case Doc.SpecialSymbol(var text) -> text.length();
-      case Doc.HyperLinked text -> predictWidth(cursor, text.doc());
-      case Doc.Image i -> predictWidth(cursor, i.alt());
-      case Doc.Styled styled -> predictWidth(cursor, styled.doc());
-      case Doc.Tooltip tooltip -> predictWidth(cursor, tooltip.doc());
-      case Doc.FlatAlt alt -> predictWidth(cursor, alt.defaultDoc());
-      case Doc.Cat cat -> cat.inner().view().map(inner -> predictWidth(cursor, inner)).reduce(Integer::sum);
-      case Doc.Nest nest -> predictWidth(cursor, nest.doc()) + nest.indent();
-      case Doc.Union union -> predictWidth(cursor, union.longerOne());
-      case Doc.Column column -> predictWidth(cursor, column.docBuilder().apply(cursor.getCursor()));
-      case Doc.Nesting nesting -> predictWidth(cursor, nesting.docBuilder().apply(cursor.getNestLevel()));
-      case Doc.PageWidth pageWidth -> predictWidth(cursor, pageWidth.docBuilder().apply(config.getPageWidth()));
-      case Doc.CodeBlock codeBlock -> predictWidth(cursor, codeBlock.code());
-      case Doc.InlineCode inlineCode -> predictWidth(cursor, inlineCode.code());
-      case Doc.InlineMath inlineMath -> predictWidth(cursor, inlineMath.formula());
-      case Doc.MathBlock mathBlock -> predictWidth(cursor, mathBlock.formula());
-      case Doc.List list -> list.items().view().map(x -> predictWidth(cursor, x)).reduce(Integer::sum);
+      case Doc.HyperLinked text -> predictWidth(cursor, text.doc(), limit);
+      case Doc.Image i -> predictWidth(cursor, i.alt(), limit);
+      case Doc.Styled styled -> predictWidth(cursor, styled.doc(), limit);
+      case Doc.Tooltip tooltip -> predictWidth(cursor, tooltip.doc(), limit);
+      case Doc.FlatAlt alt -> predictWidth(cursor, alt.defaultDoc(), limit);
+      case Doc.Cat cat -> predictWidth(cursor, cat.inner(), limit);
+      case Doc.Nest nest -> predictWidth(cursor, nest.doc(), limit - nest.indent()) + nest.indent();
+      case Doc.Union union -> predictWidth(cursor, union.longerOne(), limit);
+      case Doc.Column column -> {
+        cursorDependent++;
+        yield predictWidth(cursor, column.docBuilder().apply(cursor.getCursor()), limit);
+      }
+      case Doc.Nesting nesting -> {
+        cursorDependent++;
+        yield predictWidth(cursor, nesting.docBuilder().apply(cursor.getNestLevel()), limit);
+      }
+      case Doc.PageWidth pageWidth -> predictWidth(cursor, pageWidth.docBuilder().apply(config.getPageWidth()), limit);
+      case Doc.CodeBlock codeBlock -> predictWidth(cursor, codeBlock.code(), limit);
+      case Doc.InlineCode inlineCode -> predictWidth(cursor, inlineCode.code(), limit);
+      case Doc.InlineMath inlineMath -> predictWidth(cursor, inlineMath.formula(), limit);
+      case Doc.MathBlock mathBlock -> predictWidth(cursor, mathBlock.formula(), limit);
+      case Doc.List list -> predictWidth(cursor, list.items(), limit);
     };
+    // A width greater than the limit may be partial
+    if (width <= limit && dynamic == cursorDependent) widths.put(doc, width);
+    return width;
+  }
+
+  private int predictWidth(@NotNull Cursor cursor, @NotNull Seq<Doc> docs, int limit) {
+    var width = 0;
+    for (var doc : docs) {
+      width += predictWidth(cursor, doc, limit - width);
+      if (width > limit) break;
+    }
+    return width;
   }
 
   protected @NotNull Doc fitsBetter(@NotNull Cursor cursor, @NotNull Doc a, @NotNull Doc b) {
@@ -80,7 +134,7 @@ public class StringPrinter<Config extends StringPrinterConfig<?>> implements Pri
       return a;
     }
     var lineRem = lineRemaining(cursor);
-    return lineRem == PrinterConfig.INFINITE_SIZE || predictWidth(cursor, a) <= lineRem ? a : b;
+    return lineRem == PrinterConfig.INFINITE_SIZE || predictWidth(cursor, a, lineRem) <= lineRem ? a : b;
   }
 
   protected void renderHeader(@NotNull Cursor cursor) { }
@@ -22,6 +22,7 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -107,6 +108,12 @@ public sealed interface Doc extends Docile {
     return printer.render(config, this);
   }
 
+  /// @see Printer#render(PrinterConfig, Doc, Appendable)
+  default <Config extends PrinterConfig>
+  void render(@NotNull Printer<?, Config> printer, @NotNull Config config, @NotNull Appendable out) throws IOException {
+    printer.render(config, this, out);
+  }
+
   /** Produce ASCII and infinite-width output */
   default @NotNull String debugRender() {
     return renderToString(INFINITE_SIZE, false);
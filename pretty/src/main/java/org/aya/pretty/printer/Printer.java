@@ -5,6 +5,8 @@ package org.aya.pretty.printer;
 import org.aya.pretty.doc.Doc;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+
 /// This class was designed to support various PrettyPrint backend.
 /// Example usage:
 /// ```java
@@ -23,4 +25,17 @@ public interface Printer<Out, Config extends PrinterConfig> {
    * @return rendered content
    */
   @NotNull Out render(@NotNull Config config, @NotNull Doc doc);
+
+  /**
+   * Render a {@link Doc} object with a config into {@param out}.
+   * Printers that produce text should override this to write the content incrementally,
+   * instead of building the whole output in memory.
+   *
+   * @param config printer config
+   * @param doc    doc object
+   * @param out    where the rendered content goes
+   */
+  default void render(@NotNull Config config, @NotNull Doc doc, @NotNull Appendable out) throws IOException {
+    out.append(String.valueOf(render(config, doc)));
+  }
 }
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.aya.pretty.doc.Doc.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author kiva
@@ -253,4 +254,13 @@ public class DocStringPrinterTest {
       
       """, list.commonRender());
   }
+
+  @Test public void testNestedAlternatives() {
+    var depth = 1000;
+    var block = plain("x");
+    for (int i = 0; i < depth; i++) block = flatAltBracedBlock(block, block);
+    var result = sep(plain("a"), block).renderToString(80, false);
+    assertTrue(result.lines().allMatch(line -> line.length() <= 80));
+    assertEquals("a" + "{".repeat(depth) + "x" + "}".repeat(depth), result.replaceAll("\\s", ""));
+  }
 }
@@ -26,7 +26,6 @@ import org.aya.intellij.GenericNode;
 import org.aya.parser.AssociatedNode;
 import org.aya.parser.AyaPsiElementTypes;
 import org.aya.parser.AyaPsiParser;
-import org.aya.parser.AyaPsiTokenType;
 import org.aya.producer.error.BadXWarn;
 import org.aya.producer.error.ModifierProblem;
 import org.aya.producer.error.ParseError;
@@ -49,6 +48,7 @@ import org.aya.util.reporter.Reporter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -593,7 +593,7 @@ public record AyaProducer(
       return unreachable(node);
     }
     if (node.is(LIT_INT_EXPR)) try {
-      return new WithPos<>(pos, new Expr.LitInt(node.tokenText().toInt()));
+      return new WithPos<>(pos, new Expr.LitInt(new BigInteger(node.tokenText().toString())));
     } catch (NumberFormatException _) {
       throw new Panic("Failed to decode integer literal `" + node.tokenText() + "`");
     }
@@ -1061,14 +1061,10 @@ public record AyaProducer(
   }
 
   public static @NotNull SourcePos sourcePosOf(@NotNull GenericNode<?> node, @NotNull SourceFile file) {
-    return SourcePos.of(node.range(), file, isTerminalNode(node));
-  }
-
-  public static boolean isTerminalNode(@NotNull GenericNode<?> node) {
-    return node.elementType() instanceof AyaPsiTokenType;
+    return SourcePos.of(node.range(), file);
   }
 
   public static @NotNull SourcePos sourcePosOf(@NotNull FlexLexer.Token token, @NotNull SourceFile file) {
-    return SourcePos.of(token.range(), file, true);
+    return SourcePos.of(token.range(), file);
   }
 }
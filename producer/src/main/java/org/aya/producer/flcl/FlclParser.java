@@ -73,7 +73,7 @@ public record FlclParser(
   }
 
   private @NotNull FlclToken computeToken(TextRange range, FlclToken.Type key) {
-    return new FlclToken(SourcePos.of(range, file, true), key);
+    return new FlclToken(SourcePos.of(range, file), key);
   }
 
   private static class FlclFleetParser extends DefaultPsiParser {
@@ -41,6 +41,7 @@ public interface Shaped<T> {
     @NotNull T makeZero();
     @NotNull T makeSuc(@NotNull T t);
     @NotNull T destruct(int repr);
+    /// @return the value, or `-1` if it does not fit in an `int` (patterns always do)
     int repr();
 
     default @Override @NotNull T constructorForm() {
@@ -49,6 +50,7 @@ public interface Shaped<T> {
       return makeSuc(destruct(repr - 1));
     }
 
+    /// Only defined when [#repr] is the value, i.e. it is not `-1`
     @NotNull Shaped.Nat<T> map(@NotNull IntUnaryOperator f);
   }
 
@@ -16,7 +16,6 @@ import org.aya.pretty.doc.Link;
 import org.aya.pretty.doc.Style;
 import org.aya.pretty.style.AyaStyleKey;
 import org.aya.syntax.compile.JitCon;
-import org.aya.syntax.compile.JitDef;
 import org.aya.syntax.concrete.stmt.QualifiedID;
 import org.aya.syntax.concrete.stmt.decl.*;
 import org.aya.syntax.core.def.*;
@@ -300,8 +299,8 @@ public abstract class BasePrettier<Term extends AyaDocile> {
       return linkIdOf(currentFileModule, new TyckAnyDef<>(defVar));
     }
 
-    if (ref instanceof CompiledVar(JitDef core)) {
-      return linkIdOf(currentFileModule, core);
+    if (ref instanceof CompiledVar compiled) {
+      return linkIdOf(currentFileModule, compiled.core());
     }
 
     return Link.loc(ref.hashCode());
@@ -317,7 +316,7 @@ public abstract class BasePrettier<Term extends AyaDocile> {
     return Link.cross(fileModule.module(), location);
   }
 
-  public static @NotNull Doc linkLit(int literal, @NotNull AnyDef ref, @NotNull Style color) {
+  public static @NotNull Doc linkLit(@NotNull Number literal, @NotNull AnyDef ref, @NotNull Style color) {
     return Doc.linkRef(Doc.styled(color, Doc.plain(String.valueOf(literal))), linkIdOf(null, ref));
   }
 
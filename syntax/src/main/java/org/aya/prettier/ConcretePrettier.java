@@ -130,7 +130,7 @@ public class ConcretePrettier extends BasePrettier<Expr> {
         var ref = expr.var();
         yield ref instanceof DefVar<?, ?> defVar ? defVar(defVar) : varDoc(ref);
       }
-      case Expr.LitInt expr -> Doc.plain(String.valueOf(expr.integer()));
+      case Expr.LitInt expr -> Doc.plain(expr.integer().toString());
       case Expr.RawSort e -> Doc.styled(KEYWORD, e.kind().name());
       case Expr.Sort expr -> {
         var fn = Doc.styled(KEYWORD, expr.kind().name());
@@ -77,7 +77,7 @@ public class CorePrettier extends BasePrettier<Term> {
       case TupTerm(var lhs, var rhs) -> Doc.commaList(ImmutableSeq.of(lhs, rhs).map(t -> term(Outer.Free, t)));
       case IntegerTerm shaped -> shaped.repr() == 0
         ? linkLit(0, shaped.zero(), CON)
-        : linkLit(shaped.repr(), shaped.suc(), CON);
+        : linkLit(shaped.value(), shaped.suc(), CON);
       case ListTerm(var repr, var nil, var cons, _) -> {
         var subterms = repr.map(x -> term(Outer.Free, x));
         yield Doc.sep(
@@ -40,8 +40,7 @@ public interface GenericAyaFile {
    */
   default @NotNull Literate literate() throws IOException {
     var code = originalFile().sourceCode();
-    var mockPos = new SourcePos(originalFile(), 0, code.length(), -1, -1, -1, -1);
-    // ^ we only need index, so it's fine to use a mocked line/column
+    var mockPos = new SourcePos(originalFile(), 0, code.length());
     return new AyaLiterate.AyaVisibleCodeBlock(code, mockPos);
   }
 }
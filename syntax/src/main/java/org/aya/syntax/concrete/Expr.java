@@ -27,6 +27,7 @@ import org.aya.util.position.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -369,7 +370,7 @@ public sealed interface Expr extends AyaDocile {
     @Override public void forEach(@NotNull PosedConsumer<Expr> f) { f.accept(expr); }
   }
 
-  record LitInt(int integer) implements Expr {
+  record LitInt(@NotNull BigInteger integer) implements Expr {
     @Override public @NotNull LitInt descent(@NotNull PosedUnaryOperator<@NotNull Expr> f) { return this; }
     @Override public void forEach(@NotNull PosedConsumer<Expr> f) { }
   }
@@ -4,17 +4,33 @@ package org.aya.syntax.core.def;
 
 import kala.collection.SeqView;
 import kala.collection.immutable.ImmutableSeq;
+import org.aya.syntax.core.pat.ClauseIndex;
 import org.aya.syntax.core.pat.Pat;
 import org.aya.syntax.core.term.Term;
 import org.aya.util.position.WithPos;
 import org.aya.util.tyck.pat.PatClass;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class FnClauseBody {
   public ImmutableSeq<WithPos<Term.Matching>> clauses;
   public ImmutableSeq<PatClass.Seq<Term, Pat>> classes;
+  /// Built on demand from [#clauses], and rebuilt if they are replaced.
+  /// Racing builders compute the same immutable index, so whichever is published last is fine.
+  private volatile @Nullable Indexed indexed;
+  private record Indexed(@NotNull ImmutableSeq<WithPos<Term.Matching>> clauses, @NotNull ClauseIndex index) { }
   public FnClauseBody(ImmutableSeq<WithPos<Term.Matching>> clauses) { this.clauses = clauses; }
   public @NotNull SeqView<Term.Matching> matchingsView() {
     return clauses.view().map(WithPos::data);
   }
+
+  public @NotNull ClauseIndex index() {
+    var clauses = this.clauses;
+    var indexed = this.indexed;
+    if (indexed == null || indexed.clauses != clauses) {
+      indexed = new Indexed(clauses, ClauseIndex.build(clauses.map(WithPos::data)));
+      this.indexed = indexed;
+    }
+    return indexed.index;
+  }
 }
@@ -0,0 +1,82 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.syntax.core.pat;
+
+import kala.collection.immutable.ImmutableMap;
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.immutable.primitive.ImmutableIntSeq;
+import kala.collection.mutable.MutableLinkedHashMap;
+import kala.collection.mutable.MutableMap;
+import kala.collection.mutable.primitive.MutableIntList;
+import kala.range.primitive.IntRange;
+import org.aya.syntax.core.def.ConDefLike;
+import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.ConCallLike;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/// A one-level case tree of a list of clauses, used to skip the clauses that certainly mismatch
+/// without running [PatMatcher] on them.
+///
+/// The [#column] is the first column that has a non-[Pat.Bind] pattern in some clause.
+/// [MatcherBase] matches from left to right and binds never fail, so for every clause,
+/// the pattern in [#column] is the first one that can fail.
+/// If the argument in that column is headed by a constructor `c`, a clause with a different
+/// constructor (or literal) there fails with [org.aya.generic.State#Mismatch] right away,
+/// hence skipping it doesn't change the result, even for order-dependent clauses.
+///
+/// @param column -1 if no column is worth splitting on
+/// @param byCon  the clauses that may match an argument headed by the given constructor, in order
+/// @param others the clauses that may match an argument headed by a constructor not in [#byCon]
+public record ClauseIndex(
+  int column,
+  @NotNull ImmutableMap<ConDefLike, ImmutableIntSeq> byCon,
+  @NotNull ImmutableIntSeq others,
+  @NotNull ImmutableIntSeq all
+) {
+  public static @NotNull ClauseIndex build(@NotNull ImmutableSeq<Term.Matching> clauses) {
+    var all = ImmutableIntSeq.from(IntRange.closedOpen(0, clauses.size()));
+    var column = -1;
+    var width = clauses.isEmpty() ? 0 : clauses.getFirst().patterns().size();
+    for (int i = 0; i < width && column == -1; i++) {
+      var col = i;
+      if (clauses.anyMatch(c -> !(c.patterns().get(col) instanceof Pat.Bind))) column = i;
+    }
+    if (column == -1) return new ClauseIndex(-1, ImmutableMap.empty(), all, all);
+
+    var heads = MutableLinkedHashMap.<ConDefLike, MutableIntList>of();
+    var others = MutableIntList.create();
+    for (var clause : clauses) {
+      var head = head(clause.patterns().get(column));
+      if (head != null) heads.put(head, MutableIntList.create());
+    }
+    // A clause without a head in this column (binds, absurd, tuples) is a candidate for every constructor
+    for (int i = 0; i < clauses.size(); i++) {
+      var head = head(clauses.get(i).patterns().get(column));
+      if (head == null) {
+        others.append(i);
+        for (var candidates : heads.valuesView()) candidates.append(i);
+      } else heads.get(head).append(i);
+    }
+    var byCon = MutableMap.<ConDefLike, ImmutableIntSeq>create();
+    heads.forEach((con, candidates) -> byCon.put(con, candidates.toImmutableArray()));
+    return new ClauseIndex(column, ImmutableMap.from(byCon), others.toImmutableArray(), all);
+  }
+
+  /// @return the constructor a term must be headed by to match {@param pat}, if any
+  private static @Nullable ConDefLike head(@NotNull Pat pat) {
+    return switch (pat) {
+      case Pat.Con con -> con.ref();
+      case Pat.ShapedInt lit -> lit.repr() == 0 ? lit.zero() : lit.suc();
+      default -> null;
+    };
+  }
+
+  /// @param args arguments in whnf
+  /// @return indices of the clauses that may match {@param args}, in order
+  public @NotNull ImmutableIntSeq candidates(@NotNull ImmutableSeq<Term> args) {
+    if (column == -1 || !(args.get(column) instanceof ConCallLike kon)) return all;
+    var candidates = byCon.getOrNull(kon.ref());
+    return candidates != null ? candidates : others;
+  }
+}
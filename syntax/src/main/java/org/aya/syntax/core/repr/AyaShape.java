@@ -3,6 +3,7 @@
 package org.aya.syntax.core.repr;
 
 import kala.collection.immutable.ImmutableSeq;
+import kala.control.Either;
 import org.aya.generic.stmt.Shaped;
 import org.aya.syntax.core.def.AnyDef;
 import org.aya.syntax.core.def.ConDefLike;
@@ -16,8 +17,7 @@ import org.aya.syntax.core.term.repr.ListTerm;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import static org.aya.syntax.core.repr.CodeShape.GlobalId.SUC;
-import static org.aya.syntax.core.repr.CodeShape.GlobalId.ZERO;
+import static org.aya.syntax.core.repr.CodeShape.GlobalId.*;
 import static org.aya.syntax.core.repr.CodeShape.LocalId.*;
 
 /**
@@ -104,6 +104,95 @@ public enum AyaShape {
       )));
 
     @Override public @NotNull CodeShape codeShape() { return FN_MINUS; }
+  },
+  TIMES_SHAPE {
+    public static final @NotNull CodeShape FN_TIMES = CodeShape.binop(NAT_SHAPE.codeShape(),
+      // 0 * n => 0
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.ShapedCon.of(TYPE, ZERO), PatShape.Basic.Bind
+      ), TermShape.ConCall.of(TYPE, ZERO)),
+      // suc m * n => n + m * n
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.ShapedCon.of(TYPE, SUC, PatShape.Basic.Bind),
+        PatShape.Basic.Bind
+      ), new TermShape.ShapeCall(PLUS,
+        ImmutableSeq.of(PLUS_LEFT_SHAPE.codeShape(), PLUS_RIGHT_SHAPE.codeShape()),
+        ImmutableSeq.of(new TermShape.DeBruijn(0), TermShape.NameCall.of(FUNC,
+          new TermShape.DeBruijn(1),
+          new TermShape.DeBruijn(0)
+        )))));
+
+    @Override public @NotNull CodeShape codeShape() { return FN_TIMES; }
+  },
+  APPEND_SHAPE {
+    public static final @NotNull CodeShape FN_APPEND = CodeShape.listOp(LIST_SHAPE.codeShape(),
+      // | [ ], ys => ys
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.Basic.Bind, PatShape.ShapedCon.of(TYPE, NIL), PatShape.Basic.Bind
+      ), new TermShape.DeBruijn(0)),
+      // | x :< xs, ys => x :< _ xs ys
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.Basic.Bind,
+        PatShape.ShapedCon.of(TYPE, CONS, PatShape.Basic.Bind, PatShape.Basic.Bind),
+        PatShape.Basic.Bind
+      ), TermShape.ConCall.of(TYPE, CONS, TermShape.Any.INSTANCE,
+        new TermShape.DeBruijn(2),
+        TermShape.NameCall.of(FUNC, TermShape.Any.INSTANCE,
+          new TermShape.DeBruijn(1),
+          new TermShape.DeBruijn(0)
+        ))));
+
+    @Override public @NotNull CodeShape codeShape() { return FN_APPEND; }
+  },
+  MAP_SHAPE {
+    public static final @NotNull CodeShape FN_MAP = new FnShape(
+      FUNC,
+      // _ : {A B : Type} -> (A -> B) -> List A -> List B
+      ImmutableSeq.of(
+        new TermShape.Sort(null, 0),
+        new TermShape.Sort(null, 0),
+        TermShape.Any.INSTANCE,
+        TermShape.ShapeCall.of(TYPE, LIST_SHAPE.codeShape(), new TermShape.DeBruijn(2))
+      ),
+      TermShape.NameCall.of(TYPE, new TermShape.DeBruijn(2)),
+      Either.right(ImmutableSeq.of(
+        // | f, [ ] => [ ]
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.Basic.Bind, PatShape.Basic.Bind, PatShape.Basic.Bind, PatShape.ShapedCon.of(TYPE, NIL)
+        ), TermShape.ConCall.of(TYPE, NIL, TermShape.Any.INSTANCE)),
+        // | f, x :< xs => f x :< _ f xs
+        new ClauseShape(ImmutableSeq.of(
+          PatShape.Basic.Bind, PatShape.Basic.Bind, PatShape.Basic.Bind,
+          PatShape.ShapedCon.of(TYPE, CONS, PatShape.Basic.Bind, PatShape.Basic.Bind)
+        ), TermShape.ConCall.of(TYPE, CONS, TermShape.Any.INSTANCE,
+          new TermShape.App(new TermShape.DeBruijn(2), new TermShape.DeBruijn(1)),
+          TermShape.NameCall.of(FUNC, TermShape.Any.INSTANCE, TermShape.Any.INSTANCE,
+            new TermShape.DeBruijn(2),
+            new TermShape.DeBruijn(0)
+          )))
+      )));
+
+    @Override public @NotNull CodeShape codeShape() { return FN_MAP; }
+  },
+  REV_ONTO_SHAPE {
+    public static final @NotNull CodeShape FN_REV_ONTO = CodeShape.listOp(LIST_SHAPE.codeShape(),
+      // | buf, [ ] => buf
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.Basic.Bind, PatShape.Basic.Bind, PatShape.ShapedCon.of(TYPE, NIL)
+      ), new TermShape.DeBruijn(0)),
+      // | buf, x :< xs => _ (x :< buf) xs
+      new ClauseShape(ImmutableSeq.of(
+        PatShape.Basic.Bind, PatShape.Basic.Bind,
+        PatShape.ShapedCon.of(TYPE, CONS, PatShape.Basic.Bind, PatShape.Basic.Bind)
+      ), TermShape.NameCall.of(FUNC, TermShape.Any.INSTANCE,
+        TermShape.ConCall.of(TYPE, CONS, TermShape.Any.INSTANCE,
+          new TermShape.DeBruijn(1),
+          new TermShape.DeBruijn(2)
+        ),
+        new TermShape.DeBruijn(0)
+      )));
+
+    @Override public @NotNull CodeShape codeShape() { return FN_REV_ONTO; }
   };
 
   public @NotNull abstract CodeShape codeShape();
@@ -126,6 +215,10 @@ public enum AyaShape {
     return switch (shape) {
       case PLUS_LEFT_SHAPE, PLUS_RIGHT_SHAPE -> new IntegerOps.FnRule(ref, IntegerOps.FnRule.Kind.Add);
       case MINUS_SHAPE -> new IntegerOps.FnRule(ref, IntegerOps.FnRule.Kind.SubTrunc);
+      case TIMES_SHAPE -> new IntegerOps.FnRule(ref, IntegerOps.FnRule.Kind.Mul);
+      case APPEND_SHAPE -> new ListOps.FnRule(ref, ListOps.FnRule.Kind.Append);
+      case MAP_SHAPE -> new ListOps.FnRule(ref, ListOps.FnRule.Kind.Map);
+      case REV_ONTO_SHAPE -> new ListOps.FnRule(ref, ListOps.FnRule.Kind.RevOnto);
       default -> null;
     };
   }
@@ -31,6 +31,7 @@ public sealed interface CodeShape {
     public static final @NotNull LocalId DATA = new LocalId("Data");
     public static final @NotNull LocalId FUNC = new LocalId("Func");
     public static final @NotNull LocalId TYPE = new LocalId("Type0");
+    public static final @NotNull LocalId PLUS = new LocalId("Plus");
   }
 
   record FnShape(
@@ -52,6 +53,20 @@ public sealed interface CodeShape {
     );
   }
 
+  static FnShape listOp(CodeShape list, ClauseShape... body) {
+    return new FnShape(
+      FUNC,
+      // _ : {A : Type} -> List A -> List A -> List A
+      ImmutableSeq.of(
+        new TermShape.Sort(null, 0),
+        TermShape.ShapeCall.of(TYPE, list, new TermShape.DeBruijn(0)),
+        TermShape.NameCall.of(TYPE, new TermShape.DeBruijn(1))
+      ),
+      TermShape.NameCall.of(TYPE, new TermShape.DeBruijn(2)),
+      Either.right(ImmutableSeq.from(body))
+    );
+  }
+
   record ClauseShape(
     @NotNull ImmutableSeq<PatShape> pats,
     @NotNull TermShape body
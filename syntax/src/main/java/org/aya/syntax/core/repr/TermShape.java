@@ -22,6 +22,7 @@ sealed public interface TermShape {
    */
   record Sort(@Nullable SortKind kind, int ulift) implements TermShape { }
   record DeBruijn(int index) implements TermShape { }
+  record App(@NotNull TermShape fun, @NotNull TermShape arg) implements TermShape { }
 
   sealed interface Callable extends TermShape {
     @NotNull ImmutableSeq<TermShape> args();
@@ -36,12 +37,13 @@ sealed public interface TermShape {
     }
   }
 
+  /// @param shapes the callee is recognized as any of them
   record ShapeCall(
-    @NotNull CodeShape.MomentId name, @NotNull CodeShape shape,
+    @NotNull CodeShape.MomentId name, @NotNull ImmutableSeq<CodeShape> shapes,
     @Override @NotNull ImmutableSeq<TermShape> args
   ) implements Callable, CodeShape.Moment {
     public static @NotNull ShapeCall of(@NotNull CodeShape.MomentId name, @NotNull CodeShape shape, @NotNull TermShape... args) {
-      return new ShapeCall(name, shape, ImmutableSeq.from(args));
+      return new ShapeCall(name, ImmutableSeq.of(shape), ImmutableSeq.from(args));
     }
   }
 
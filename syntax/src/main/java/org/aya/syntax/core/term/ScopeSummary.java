@@ -0,0 +1,138 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.syntax.core.term;
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.generic.TermVisitor;
+import org.aya.syntax.core.Closure;
+import org.aya.syntax.core.def.Matchy;
+import org.aya.syntax.core.term.call.ConCall;
+import org.aya.syntax.core.term.call.DataCall;
+import org.aya.syntax.core.term.call.FnCall;
+import org.aya.syntax.core.term.call.MatchCall;
+import org.aya.syntax.core.term.call.MetaCall;
+import org.aya.syntax.core.term.repr.IntegerTerm;
+import org.aya.syntax.core.term.repr.MetaLitTerm;
+import org.aya.syntax.core.term.repr.StringTerm;
+import org.aya.syntax.core.term.xtt.DimTerm;
+import org.jetbrains.annotations.NotNull;
+
+/// A summary of the variables a [Term] may refer to, encoded in an `int`:
+///
+/// * the lower bits are the _loose bound_, that is, the maximum index of the loose [LocalTerm]s plus one,
+///   so a term is locally closed iff its loose bound is `0`,
+/// * [#FREE] is set if the term may contain [FreeTermLike]s,
+/// * [#META] is set if the term may contain metavariables, including the ones in the clauses of a [MatchCall],
+///   which are not visited by [Term#descent] but are zonked by the finalizer.
+///
+/// The summary only covers the sub-terms that [Term#descent] visits, which is exactly the part
+/// that [Term#bindAllFrom] and [Term#replaceAllFrom] can change.
+/// It is computed once by the constructors of [FnCall], [ConCall] and [DataCall], which are the most common
+/// (and often huge) spines, so binding and substitution can skip them in constant time.
+/// For other terms it is recomputed by traversal, so we only ask for the cached one in hot paths.
+///
+/// The binders are not cached on purpose:
+///
+/// * [LamTerm], [LetTerm], [org.aya.syntax.core.term.xtt.EqTerm] and [org.aya.syntax.core.term.xtt.CoeTerm]
+///   are thin wrappers, so a traversal reaches the cached calls in them after a constant number of steps.
+///   They are also rebuilt whenever their closures are, where computing a summary would cost a traversal.
+/// * [DepTypeTerm] builds the telescopes, so a signature with `n` parameters nests `n` of them.
+///   Skipping a closed telescope would save the tycker some work when it instantiates a signature,
+///   but the cache would need [DepTypeTerm] to stop being a record, and the tycker deconstructs it in many places.
+/// * The body of a [Closure.Jit] is compiled code, so only the lack of loose indices is known, see [#of(Closure)].
+public interface ScopeSummary {
+  int CLOSED = 0;
+  int BOUND_MASK = (1 << 28) - 1;
+  int FREE = 1 << 28;
+  int META = 1 << 29;
+
+  static int looseBound(int summary) { return summary & BOUND_MASK; }
+  static boolean hasFree(int summary) { return (summary & FREE) != 0; }
+  static boolean hasMeta(int summary) { return (summary & META) != 0; }
+
+  static int join(int a, int b) {
+    return Math.max(looseBound(a), looseBound(b)) | ((a | b) & ~BOUND_MASK);
+  }
+
+  /// @return the summary of a term under one more binder, i.e. the body of a [Closure]
+  static int under(int summary) {
+    var bound = looseBound(summary);
+    return (bound == 0 ? 0 : bound - 1) | (summary & ~BOUND_MASK);
+  }
+
+  /// @return the cached summary of {@param term}, or `-1` if not cached
+  static int cached(@NotNull Term term) {
+    return switch (term) {
+      case FnCall call -> call.summary();
+      case ConCall call -> call.summary();
+      case DataCall call -> call.summary();
+      default -> -1;
+    };
+  }
+
+  /// @return false only if {@param term} certainly contains no [FreeTermLike], in constant time
+  static boolean mayHaveFree(@NotNull Term term) {
+    var summary = cached(term);
+    return summary == -1 || hasFree(summary);
+  }
+
+  /// @return false only if {@param term} certainly contains no [LocalTerm] whose index is `>= from`, in constant time
+  static boolean mayHaveLoose(@NotNull Term term, int from) {
+    var summary = cached(term);
+    return summary == -1 || looseBound(summary) > from;
+  }
+
+  /// @return false only if {@param term} certainly contains no metas, in constant time
+  static boolean mayHaveMeta(@NotNull Term term) {
+    var summary = cached(term);
+    return summary == -1 || hasMeta(summary);
+  }
+
+  static int of(@NotNull ImmutableSeq<Term> terms) {
+    var summary = CLOSED;
+    for (var term : terms) summary = join(summary, of(term));
+    return summary;
+  }
+
+  static int of(@NotNull Closure closure) {
+    return switch (closure) {
+      case Closure.Const(var term) -> of(term);
+      case Closure.Locns(var body) -> under(of(body));
+      // Compiled code takes its bound variable as a Java argument, so it never refers to loose indices.
+      // It may capture arbitrary terms, including free variables and metas, and they can't be inspected,
+      // so this summary only allows skipping the binding of indices, which is what matters for closures.
+      case Closure.Jit _ -> FREE | META;
+    };
+  }
+
+  static int of(@NotNull Term term) {
+    var cached = cached(term);
+    if (cached != -1) return cached;
+    return switch (term) {
+      case LocalTerm(var index) -> index + 1;
+      case FreeTermLike _ -> FREE;
+      case IntegerTerm _, SortTerm _, DimTerm _, StringTerm _ -> CLOSED;
+      case MetaCall call -> META | of(call.args());
+      default -> {
+        var collector = new Collector();
+        term.descent(collector);
+        yield term instanceof MetaPatTerm || term instanceof MetaLitTerm || term instanceof MatchCall(Matchy _, _, _)
+          ? collector.summary | META : collector.summary;
+      }
+    };
+  }
+
+  final class Collector implements TermVisitor {
+    private int summary = CLOSED;
+
+    @Override public @NotNull Term term(@NotNull Term term) {
+      summary = join(summary, of(term));
+      return term;
+    }
+
+    @Override public @NotNull Closure closure(@NotNull Closure closure) {
+      summary = join(summary, of(closure));
+      return closure;
+    }
+  }
+}
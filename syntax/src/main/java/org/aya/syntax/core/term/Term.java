@@ -46,7 +46,7 @@ public sealed interface Term extends Serializable, AyaDocile
   ///
   /// @see #replaceAllFrom
   default @NotNull @Bound Term bindAllFrom(@NotNull ImmutableSeq<LocalVar> vars, int fromDepth) {
-    if (vars.isEmpty()) return this;
+    if (vars.isEmpty() || !ScopeSummary.mayHaveFree(this)) return this;
     return descent(
       t -> t.bindAllFrom(vars, fromDepth),
       c -> c.descent(t -> t.bindAllFrom(vars, fromDepth + 1)));
@@ -85,7 +85,7 @@ public sealed interface Term extends Serializable, AyaDocile
   /// @see #bindAllFrom
   @ApiStatus.Internal
   default @NoInherit @NotNull Term replaceAllFrom(int from, @NotNull ImmutableSeq<@Closed Term> list) {
-    if (list.isEmpty()) return this;
+    if (list.isEmpty() || !ScopeSummary.mayHaveLoose(this, from)) return this;
     return descent(
       t -> t.replaceAllFrom(from, list),
       c -> c.descent(t -> t.replaceAllFrom(from + 1, list)));
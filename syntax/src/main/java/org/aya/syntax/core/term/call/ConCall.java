@@ -6,27 +6,31 @@ import kala.collection.immutable.ImmutableSeq;
 import org.aya.generic.TermVisitor;
 import org.aya.syntax.core.def.ConDef;
 import org.aya.syntax.core.def.ConDefLike;
+import org.aya.syntax.core.term.ScopeSummary;
 import org.aya.syntax.core.term.Term;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-/**
- * @param conArgs the arguments to the constructor, see {@link ConDef#selfTele}
- */
-public record ConCall(
-  @Override @NotNull ConCall.Head head,
-  @Override @NotNull ImmutableSeq<Term> conArgs
-) implements ConCallLike, Callable.SharableCall {
+import java.util.Objects;
+
+/// Not a record, so that the [ScopeSummary] can only be computed here, see [#summary()].
+/// The [#conArgs()] are the arguments to the constructor, see [ConDef#selfTele].
+public final class ConCall implements ConCallLike, Callable.SharableCall {
+  private final @NotNull ConCall.Head head;
+  private final @NotNull ImmutableSeq<Term> conArgs;
+  private final int summary;
+
+  private ConCall(@NotNull ConCall.Head head, @NotNull ImmutableSeq<Term> conArgs, int summary) {
+    this.head = head;
+    this.conArgs = conArgs;
+    this.summary = summary;
+  }
   public ConCall(@NotNull ConDefLike con) {
-    this(new Head(con, 0, ImmutableSeq.empty()), ImmutableSeq.empty());
+    this(new Head(con, 0, ImmutableSeq.empty()), ImmutableSeq.empty(), ScopeSummary.CLOSED);
   }
-  public @NotNull ConCall update(@NotNull Head head, @NotNull ImmutableSeq<Term> conArgs) {
-    return head == head() && conArgs.sameElements(conArgs(), true) ? this : new ConCall(head, conArgs);
+  public ConCall(@NotNull ConCall.Head head, @NotNull ImmutableSeq<Term> conArgs) {
+    this(head, conArgs, ScopeSummary.join(ScopeSummary.of(head.ownerArgs()), ScopeSummary.of(conArgs)));
   }
-
-  @Override public @NotNull Term descent(@NotNull TermVisitor visitor) {
-    return update(head.descent(visitor), Callable.descent(conArgs, visitor));
-  }
-
   public ConCall(
     @NotNull ConDefLike ref,
     @NotNull ImmutableSeq<@NotNull Term> ownerArgs,
@@ -36,7 +40,28 @@ public record ConCall(
     this(new Head(ref, ulift, ownerArgs), conArgs);
   }
 
+  @Override public @NotNull ConCall.Head head() { return head; }
+  @Override public @NotNull ImmutableSeq<Term> conArgs() { return conArgs; }
+  /// @return see [ScopeSummary], computed from [#head()] and [#conArgs()]
+  public int summary() { return summary; }
+
+  public @NotNull ConCall update(@NotNull Head head, @NotNull ImmutableSeq<Term> conArgs) {
+    return head == head() && conArgs.sameElements(conArgs(), true) ? this : new ConCall(head, conArgs);
+  }
+
+  @Override public @NotNull Term descent(@NotNull TermVisitor visitor) {
+    return update(head.descent(visitor), Callable.descent(conArgs, visitor));
+  }
+
   @Override public @NotNull Tele doElevate(int level) {
-    return new ConCall(new Head(head.ref(), head.ulift() + level, head.ownerArgs()), conArgs);
+    return new ConCall(new Head(head.ref(), head.ulift() + level, head.ownerArgs()), conArgs, summary);
+  }
+
+  @Override public boolean equals(@Nullable Object o) {
+    return o instanceof ConCall that && head.equals(that.head) && conArgs.equals(that.conArgs);
+  }
+  @Override public int hashCode() { return Objects.hash(head, conArgs); }
+  @Override public @NotNull String toString() {
+    return "ConCall[head=" + head + ", conArgs=" + conArgs + "]";
   }
 }
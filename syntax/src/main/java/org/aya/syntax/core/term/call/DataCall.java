@@ -5,17 +5,39 @@ package org.aya.syntax.core.term.call;
 import kala.collection.immutable.ImmutableSeq;
 import org.aya.generic.TermVisitor;
 import org.aya.syntax.core.def.DataDefLike;
+import org.aya.syntax.core.term.ScopeSummary;
 import org.aya.syntax.core.term.Term;
 import org.aya.syntax.core.term.marker.Formation;
 import org.aya.syntax.core.term.marker.StableWHNF;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/// Not a record, so that the [ScopeSummary] can only be computed here, see [#summary()].
+public final class DataCall implements Callable.SharableCall, StableWHNF, Formation {
+  private final @NotNull DataDefLike ref;
+  private final int ulift;
+  private final @NotNull ImmutableSeq<@NotNull Term> args;
+  private final int summary;
+
+  private DataCall(@NotNull DataDefLike ref, int ulift, @NotNull ImmutableSeq<@NotNull Term> args, int summary) {
+    this.ref = ref;
+    this.ulift = ulift;
+    this.args = args;
+    this.summary = summary;
+  }
+  public DataCall(@NotNull DataDefLike ref) { this(ref, 0, ImmutableSeq.empty(), ScopeSummary.CLOSED); }
+  public DataCall(@NotNull DataDefLike ref, int ulift, @NotNull ImmutableSeq<@NotNull Term> args) {
+    this(ref, ulift, args, ScopeSummary.of(args));
+  }
+
+  @Override public @NotNull DataDefLike ref() { return ref; }
+  @Override public int ulift() { return ulift; }
+  @Override public @NotNull ImmutableSeq<@NotNull Term> args() { return args; }
+  /// @return see [ScopeSummary], computed from [#args()]
+  public int summary() { return summary; }
 
-public record DataCall(
-  @Override @NotNull DataDefLike ref,
-  @Override int ulift,
-  @Override @NotNull ImmutableSeq<@NotNull Term> args
-) implements Callable.SharableCall, StableWHNF, Formation {
-  public DataCall(@NotNull DataDefLike ref) { this(ref, 0, ImmutableSeq.empty()); }
   public @NotNull DataCall update(@NotNull ImmutableSeq<Term> args) {
     return args.sameElements(args(), true) ? this : new DataCall(ref, ulift, args);
   }
@@ -25,6 +47,14 @@ public record DataCall(
   }
 
   @Override public @NotNull Tele doElevate(int level) {
-    return new DataCall(ref, ulift + level, args);
+    return new DataCall(ref, ulift + level, args, summary);
+  }
+
+  @Override public boolean equals(@Nullable Object o) {
+    return o instanceof DataCall that && ulift == that.ulift && ref.equals(that.ref) && args.equals(that.args);
+  }
+  @Override public int hashCode() { return Objects.hash(ref, ulift, args); }
+  @Override public @NotNull String toString() {
+    return "DataCall[ref=" + ref + ", ulift=" + ulift + ", args=" + args + "]";
   }
 }
@@ -5,20 +5,46 @@ package org.aya.syntax.core.term.call;
 import kala.collection.immutable.ImmutableSeq;
 import org.aya.generic.TermVisitor;
 import org.aya.syntax.core.def.FnDefLike;
+import org.aya.syntax.core.term.ScopeSummary;
 import org.aya.syntax.core.term.Term;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-public record FnCall(
-  @Override @NotNull FnDefLike ref,
-  @Override int ulift,
-  @Override @NotNull ImmutableSeq<@NotNull Term> args,
-  boolean tailCall
-) implements Callable.SharableCall {
-  public FnCall(@NotNull FnDefLike ref) { this(ref, 0, ImmutableSeq.empty(), false); }
+import java.util.Objects;
+
+/// Not a record, so that the [ScopeSummary] can only be computed here, see [#summary()].
+public final class FnCall implements Callable.SharableCall {
+  private final @NotNull FnDefLike ref;
+  private final int ulift;
+  private final @NotNull ImmutableSeq<@NotNull Term> args;
+  private final boolean tailCall;
+  private final int summary;
+
+  private FnCall(
+    @NotNull FnDefLike ref, int ulift, @NotNull ImmutableSeq<@NotNull Term> args,
+    boolean tailCall, int summary
+  ) {
+    this.ref = ref;
+    this.ulift = ulift;
+    this.args = args;
+    this.tailCall = tailCall;
+    this.summary = summary;
+  }
+  public FnCall(@NotNull FnDefLike ref) { this(ref, 0, ImmutableSeq.empty(), false, ScopeSummary.CLOSED); }
+  public FnCall(@NotNull FnDefLike ref, int ulift, @NotNull ImmutableSeq<@NotNull Term> args, boolean tailCall) {
+    this(ref, ulift, args, tailCall, ScopeSummary.of(args));
+  }
   public FnCall(@NotNull FnDefLike ref, int ulift, @NotNull ImmutableSeq<@NotNull Term> args) {
     this(ref, ulift, args, false);
   }
 
+  @Override public @NotNull FnDefLike ref() { return ref; }
+  @Override public int ulift() { return ulift; }
+  @Override public @NotNull ImmutableSeq<@NotNull Term> args() { return args; }
+  public boolean tailCall() { return tailCall; }
+  /// @return see [ScopeSummary], computed from [#args()]
+  public int summary() { return summary; }
+
   public @NotNull FnCall update(@NotNull ImmutableSeq<Term> args) {
     return args.sameElements(args(), true) ? this : new FnCall(ref, ulift, args, tailCall);
   }
@@ -28,6 +54,15 @@ public record FnCall(
   }
 
   @Override public @NotNull Tele doElevate(int level) {
-    return new FnCall(ref, ulift + level, args, tailCall);
+    return new FnCall(ref, ulift + level, args, tailCall, summary);
+  }
+
+  @Override public boolean equals(@Nullable Object o) {
+    return o instanceof FnCall that && ulift == that.ulift && tailCall == that.tailCall
+      && ref.equals(that.ref) && args.equals(that.args);
+  }
+  @Override public int hashCode() { return Objects.hash(ref, ulift, args, tailCall); }
+  @Override public @NotNull String toString() {
+    return "FnCall[ref=" + ref + ", ulift=" + ulift + ", args=" + args + ", tailCall=" + tailCall + "]";
   }
 }
@@ -12,6 +12,8 @@ import org.aya.syntax.core.term.Term;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
+
 /**
  * IntegerOps acts like a DefVar with special reduce rule. So it is not a {@link Term}.
  *
@@ -26,7 +28,9 @@ public sealed interface IntegerOps<Def extends AnyDef> extends Shaped.Applicable
       // suc
       assert args.sizeEquals(1);
       var arg = args.get(0);
-      if (arg instanceof IntegerTerm intTerm) return intTerm.map(x -> x + 1);
+      if (arg instanceof IntegerTerm intTerm) return intTerm.isBig()
+        ? intTerm.with(intTerm.value().add(BigInteger.ONE))
+        : intTerm.with(intTerm.repr() + 1L);
       return null;
     }
     @Override public @NotNull ConRule descent(@NotNull TermVisitor visitor) { return this; }
@@ -34,28 +38,28 @@ public sealed interface IntegerOps<Def extends AnyDef> extends Shaped.Applicable
 
   record FnRule(@Override @NotNull FnDefLike ref, @NotNull Kind kind) implements IntegerOps<FnDefLike> {
     public enum Kind {
-      Add, SubTrunc
+      Add, SubTrunc, Mul
     }
 
     @Override public @Nullable Term apply(@NotNull ImmutableSeq<Term> args) {
-      return switch (kind) {
-        case Add -> {
-          assert args.sizeEquals(2);
-          if (args.get(0) instanceof IntegerTerm ita && args.get(1) instanceof IntegerTerm itb) {
-            yield ita.map(x -> x + itb.repr());
-          }
-
-          yield null;
-        }
-        case SubTrunc -> {
-          assert args.sizeEquals(2);
-          if (args.get(0) instanceof IntegerTerm ita && args.get(1) instanceof IntegerTerm itb) {
-            yield ita.map(x -> Math.max(x - itb.repr(), 0));
-          }
-
-          yield null;
-        }
-      };
+      assert args.sizeEquals(2);
+      if (!(args.get(0) instanceof IntegerTerm a && args.get(1) instanceof IntegerTerm b)) return null;
+      // The product of two `int`s fits in a `long`, so does the sum and the difference
+      if (!a.isBig() && !b.isBig()) {
+        long x = a.repr(), y = b.repr();
+        return a.with(switch (kind) {
+          case Add -> x + y;
+          case SubTrunc -> Math.max(x - y, 0);
+          case Mul -> x * y;
+        });
+      }
+      var x = a.value();
+      var y = b.value();
+      return a.with(switch (kind) {
+        case Add -> x.add(y);
+        case SubTrunc -> x.subtract(y).max(BigInteger.ZERO);
+        case Mul -> x.multiply(y);
+      });
     }
     @Override public @NotNull FnRule descent(@NotNull TermVisitor visitor) { return this; }
   }
@@ -14,27 +14,62 @@ import org.aya.syntax.core.term.call.DataCall;
 import org.aya.syntax.core.term.call.RuleReducer;
 import org.aya.syntax.core.term.marker.StableWHNF;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.math.BigInteger;
+import java.util.Objects;
 import java.util.function.IntUnaryOperator;
 
 /**
- * An efficient represent for Nat
+ * An efficient represent for Nat.
+ * <p>
+ * Values that fit in an {@code int} are stored in {@link #repr}, the others are stored in {@link #big}
+ * and {@link #repr} is {@code -1}, so matching against a literal (which is always small) can keep using {@link #repr}.
+ * Use {@link #value()} when the value itself is needed.
  */
 public record IntegerTerm(
   @Override int repr,
+  @Nullable BigInteger big,
   @NotNull ConDefLike zero,
   @NotNull ConDefLike suc,
   @Override @NotNull DataCall type
 ) implements StableWHNF, Shaped.Nat<Term>, ConCallLike {
 
   public IntegerTerm {
-    assert repr >= 0;
+    assert big == null ? repr >= 0 : repr == -1 && big.bitLength() > 31;
+  }
+
+  public IntegerTerm(int repr, @NotNull ConDefLike zero, @NotNull ConDefLike suc, @NotNull DataCall type) {
+    this(repr, null, zero, suc, type);
   }
 
   public IntegerTerm(int repr, @NotNull ShapeRecognition recog, @NotNull DataCall type) {
     this(repr, recog.getCon(CodeShape.GlobalId.ZERO), recog.getCon(CodeShape.GlobalId.SUC), type);
   }
 
+  public boolean isBig() { return big != null; }
+  public @NotNull BigInteger value() { return big != null ? big : BigInteger.valueOf(repr); }
+  public boolean sameValue(@NotNull IntegerTerm other) {
+    return repr == other.repr && Objects.equals(big, other.big);
+  }
+
+  /// @param value non-negative
+  public @NotNull IntegerTerm with(long value) {
+    if (value <= Integer.MAX_VALUE) return new IntegerTerm((int) value, zero, suc, type);
+    return new IntegerTerm(-1, BigInteger.valueOf(value), zero, suc, type);
+  }
+
+  /// @param value non-negative
+  public @NotNull IntegerTerm with(@NotNull BigInteger value) {
+    if (value.bitLength() <= 31) return new IntegerTerm(value.intValue(), zero, suc, type);
+    return new IntegerTerm(-1, value, zero, suc, type);
+  }
+
+  /// Used by the code generated for literals that don't fit in an `int`
+  public @NotNull IntegerTerm withDecimal(@NotNull String decimal) {
+    return with(new BigInteger(decimal));
+  }
+
   @Override
   public @NotNull ConCallLike.Head head() {
     return new ConCallLike.Head(repr == 0 ? zero : suc, 0, ImmutableSeq.empty());
@@ -42,6 +77,7 @@ public record IntegerTerm(
 
   @Override public @NotNull ImmutableSeq<Term> conArgs() {
     if (repr == 0) return ImmutableSeq.empty();
+    if (big != null) return ImmutableSeq.of(with(big.subtract(BigInteger.ONE)));
     return ImmutableSeq.of(new IntegerTerm(repr - 1, zero, suc, type));
   }
 
@@ -51,7 +87,7 @@ public record IntegerTerm(
     return this;
   }
 
-  @Override public @NotNull IntegerTerm makeZero() { return map(_ -> 0); }
+  @Override public @NotNull IntegerTerm makeZero() { return new IntegerTerm(0, zero, suc, type); }
   @Override public @NotNull Term makeSuc(@NotNull Term term) {
     return new RuleReducer.Con(new IntegerOps.ConRule(suc, makeZero()),
       0, type.args(), ImmutableSeq.of(term));
@@ -61,7 +97,9 @@ public record IntegerTerm(
     return new IntegerTerm(repr, zero, suc, type);
   }
 
+  /// Only for small values as required by [Shaped.Nat#map], see [#with] for the others
   @Override public @NotNull IntegerTerm map(@NotNull IntUnaryOperator f) {
+    assert big == null;
     return new IntegerTerm(f.applyAsInt(repr), zero, suc, type);
   }
   @Override public int ulift() { return type.ulift(); }
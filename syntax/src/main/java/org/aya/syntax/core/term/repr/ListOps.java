@@ -7,7 +7,10 @@ import org.aya.generic.TermVisitor;
 import org.aya.generic.stmt.Shaped;
 import org.aya.syntax.core.def.AnyDef;
 import org.aya.syntax.core.def.ConDefLike;
+import org.aya.syntax.core.def.FnDefLike;
+import org.aya.syntax.core.term.AppTerm;
 import org.aya.syntax.core.term.Term;
+import org.aya.syntax.core.term.call.DataCall;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -35,4 +38,47 @@ public interface ListOps<Def extends AnyDef> extends Shaped.Applicable<Def> {
       return update((ListTerm) visitor.term(empty));
     }
   }
+
+  /// Operations on list literals, working on [ListTerm#repr] instead of one cons cell at a time.
+  /// The first argument is always the implicit element type.
+  record FnRule(@Override @NotNull FnDefLike ref, @NotNull Kind kind) implements ListOps<FnDefLike> {
+    public enum Kind {
+      /// `{A} (xs ys : List A) : List A`
+      Append,
+      /// `{A} {B} (f : A -> B) (xs : List A) : List B`
+      Map,
+      /// `{A} (buf xs : List A) : List A`, reverses `xs` onto `buf`
+      RevOnto,
+    }
+
+    @Override public @Nullable Term apply(@NotNull ImmutableSeq<Term> args) {
+      return switch (kind) {
+        case Append -> {
+          assert args.sizeEquals(3);
+          if (!(args.get(1) instanceof ListTerm xs)) yield null;
+          // [ ] ++ ys => ys
+          if (xs.repr().isEmpty()) yield args.get(2);
+          if (!(args.get(2) instanceof ListTerm ys)) yield null;
+          yield xs.map(repr -> repr.appendedAll(ys.repr()));
+        }
+        case Map -> {
+          assert args.sizeEquals(4);
+          if (!(args.get(3) instanceof ListTerm xs)) yield null;
+          var f = args.get(2);
+          var type = xs.type();
+          yield new ListTerm(xs.repr().map(x -> AppTerm.make(f, x)), xs.nil(), xs.cons(),
+            new DataCall(type.ref(), type.ulift(), ImmutableSeq.of(args.get(1))));
+        }
+        case RevOnto -> {
+          assert args.sizeEquals(3);
+          if (!(args.get(2) instanceof ListTerm xs)) yield null;
+          // rev' buf [ ] => buf
+          if (xs.repr().isEmpty()) yield args.get(1);
+          if (!(args.get(1) instanceof ListTerm buf)) yield null;
+          yield buf.map(repr -> xs.repr().reversed().appendedAll(repr));
+        }
+      };
+    }
+    @Override public @NotNull FnRule descent(@NotNull TermVisitor visitor) { return this; }
+  }
 }
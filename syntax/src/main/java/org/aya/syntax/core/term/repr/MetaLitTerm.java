@@ -13,6 +13,7 @@ import org.aya.syntax.core.term.marker.TyckInternal;
 import org.aya.util.position.SourcePos;
 import org.jetbrains.annotations.NotNull;
 
+import java.math.BigInteger;
 import java.util.function.UnaryOperator;
 
 public record MetaLitTerm(
@@ -37,10 +38,10 @@ public record MetaLitTerm(
       var recog = t.recog();
       var shape = recog.shape();
       if (shape == AyaShape.NAT_SHAPE)
-        return Option.some(new IntegerTerm((int) repr,
+        return Option.some(new IntegerTerm(0,
           recog.getCon(CodeShape.GlobalId.ZERO),
           recog.getCon(CodeShape.GlobalId.SUC),
-          dataCall));
+          dataCall).with((BigInteger) repr));
       if (shape == AyaShape.LIST_SHAPE)
         return Option.some(new ListTerm((ImmutableSeq<Term>) repr,
           recog.getCon(CodeShape.GlobalId.NIL),
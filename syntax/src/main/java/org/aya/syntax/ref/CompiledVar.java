@@ -1,10 +1,61 @@
-// Copyright (c) 2020-2024 Tesla (Yinsen) Zhang.
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.syntax.ref;
 
 import org.aya.syntax.compile.JitDef;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
 
-public record CompiledVar(@NotNull JitDef core) implements AnyDefVar {
-  @Override public @NotNull String name() { return core.name(); }
+import java.util.function.Supplier;
+
+/// A reference to a compiled definition. The definition can be loaded on demand (see [#lazy]),
+/// so that importing a module doesn't initialize the classes of all its definitions.
+///
+/// Both the equality and the hash code only depend on the qualified name,
+/// so that neither of them loads the definition.
+public final class CompiledVar implements AnyDefVar {
+  private final @NotNull QName qualifiedName;
+  private volatile @Nullable JitDef core;
+  private @Nullable Supplier<JitDef> loader;
+
+  public CompiledVar(@NotNull JitDef core) {
+    this.qualifiedName = core.qualifiedName();
+    this.core = core;
+  }
+
+  private CompiledVar(@NotNull QName qualifiedName, @NotNull Supplier<JitDef> loader) {
+    this.qualifiedName = qualifiedName;
+    this.loader = loader;
+  }
+
+  /// @param qualifiedName must be the same as [JitDef#qualifiedName()] of the loaded one
+  public static @NotNull CompiledVar lazy(@NotNull QName qualifiedName, @NotNull Supplier<JitDef> loader) {
+    return new CompiledVar(qualifiedName, loader);
+  }
+
+  public @NotNull JitDef core() {
+    var core = this.core;
+    if (core != null) return core;
+    synchronized (this) {
+      core = this.core;
+      if (core == null) {
+        assert loader != null;
+        this.core = core = loader.get();
+        loader = null;
+      }
+    }
+    return core;
+  }
+
+  @VisibleForTesting public boolean isLoaded() { return core != null; }
+  public @NotNull QName qualifiedName() { return qualifiedName; }
+  @Override public @NotNull String name() { return qualifiedName.name(); }
+
+  @Override public boolean equals(@Nullable Object o) {
+    return this == o || o instanceof CompiledVar that && qualifiedName.equals(that.qualifiedName);
+  }
+
+  @Override public int hashCode() { return qualifiedName.hashCode(); }
+  @Override public @NotNull String toString() { return "CompiledVar[" + qualifiedName + "]"; }
 }
@@ -6,33 +6,60 @@ import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.util.text.LineColumn;
 import kala.collection.SeqView;
 import org.aya.util.Global;
-import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
-
 /// Position in source code for error reporting only.
 ///
-/// @param tokenEndIndex   The index of last character (inclusive)
-/// @param tokenStartIndex The index of first character (inclusive)
+/// Only the token indices are stored, packed in [#range], and the line-column positions
+/// are computed from [SourceFile#lineOffsets] on demand, as they are only needed
+/// when an error is reported or a position is sent to the editor.
+///
+/// @param range the index of the first character (inclusive) in the higher 32 bits,
+///              and the index of the last character (inclusive) in the lower 32 bits,
+///              see [#tokenStartIndex()] and [#tokenEndIndex()]
 /// @author kiva
-public record SourcePos(
-  @NotNull SourceFile file,
-  int tokenStartIndex,
-  int tokenEndIndex,
-  int startLine,
-  int startColumn,
-  int endLine,
-  int endColumn
-) implements Comparable<SourcePos> {
+public record SourcePos(@NotNull SourceFile file, long range) implements Comparable<SourcePos> {
   public SourcePos {
-    assert tokenEndIndex >= tokenStartIndex - 1;
+    assert tokenEndIndex() >= tokenStartIndex() - 1;
+  }
+
+  public SourcePos(@NotNull SourceFile file, int tokenStartIndex, int tokenEndIndex) {
+    this(file, pack(tokenStartIndex, tokenEndIndex));
   }
 
   /// Single instance SourcePos for mocking tests and other usages.
-  public static final SourcePos NONE = new SourcePos(SourceFile.NONE, -1, -1, -1, -1, -1, -1);
+  public static final SourcePos NONE = new SourcePos(SourceFile.NONE, -1, -1);
   /// Source pos used in serialized core
-  public static final SourcePos SER = new SourcePos(SourceFile.SER, -1, -1, -1, -1, -1, -1);
+  public static final SourcePos SER = new SourcePos(SourceFile.SER, -1, -1);
+
+  private static long pack(int tokenStartIndex, int tokenEndIndex) {
+    return ((long) tokenStartIndex << 32) | (tokenEndIndex & 0xFFFFFFFFL);
+  }
+
+  /// The index of first character (inclusive)
+  public int tokenStartIndex() { return (int) (range >>> 32); }
+  /// The index of last character (inclusive)
+  public int tokenEndIndex() { return (int) range; }
+
+  /// @return 1-based, or -1 if there is no position
+  public int startLine() { return line(tokenStartIndex()); }
+  /// @return 0-based, or -1 if there is no position
+  public int startColumn() { return column(tokenStartIndex()); }
+  public int endLine() { return line(endIndex()); }
+  public int endColumn() { return column(endIndex()); }
+
+  /// The last character of an empty range is considered to be the first one
+  private int endIndex() { return Math.max(tokenStartIndex(), tokenEndIndex()); }
+
+  private int line(int index) {
+    if (index < 0) return -1;
+    return offsetToLineColumn(file, index, 0).line + 1;
+  }
+
+  private int column(int index) {
+    if (index < 0) return -1;
+    return offsetToLineColumn(file, index, 0).column;
+  }
 
   private static int min(int x, int y) {
     if (x == -1) return y;
@@ -46,28 +73,15 @@ public record SourcePos(
     return Math.max(x, y);
   }
 
-  @Contract("_ -> new") public @NotNull SourcePos union(@NotNull SourcePos other) {
-    return new SourcePos(
-      file,
-      min(tokenStartIndex, other.tokenStartIndex),
-      max(tokenEndIndex, other.tokenEndIndex),
-      min(startLine, other.startLine),
-      unionStartCol(other),
-      max(endLine, other.endLine),
-      unionEndCol(other)
-    );
-  }
-
-  private int unionStartCol(@NotNull SourcePos other) {
-    if (startLine == other.startLine) return min(startColumn, other.startColumn);
-    if (startLine < other.startLine) return startColumn;
-    return other.startColumn;
-  }
-
-  private int unionEndCol(@NotNull SourcePos other) {
-    if (endLine == other.endLine) return max(endColumn, other.endColumn);
-    if (endLine > other.endLine) return endColumn;
-    return other.endColumn;
+  /// @return either this, {@param other}, or a new [SourcePos] covering both
+  public @NotNull SourcePos union(@NotNull SourcePos other) {
+    var union = pack(
+      min(tokenStartIndex(), other.tokenStartIndex()),
+      max(tokenEndIndex(), other.tokenEndIndex()));
+    if (union == range) return this;
+    var file = tokenStartIndex() == -1 ? other.file : this.file;
+    if (union == other.range && file == other.file) return other;
+    return new SourcePos(file, union);
   }
 
   @Override public boolean equals(Object o) {
@@ -76,71 +90,53 @@ public record SourcePos(
     // as it is guaranteed to be correct by antlr.
     if (Global.UNITE_SOURCE_POS || this == o) return true;
     if (!(o instanceof SourcePos sourcePos)) return false;
-    return tokenStartIndex == sourcePos.tokenStartIndex &&
-      tokenEndIndex == sourcePos.tokenEndIndex &&
-      startLine == sourcePos.startLine &&
-      startColumn == sourcePos.startColumn &&
-      endLine == sourcePos.endLine &&
-      endColumn == sourcePos.endColumn;
+    return range == sourcePos.range;
   }
 
   public boolean contains(int line, int column) {
-    return line >= startLine && line <= endLine && column >= startColumn && column <= endColumn;
+    var startLine = startLine();
+    var endLine = endLine();
+    return line >= startLine && line <= endLine && column >= startColumn() && column <= endColumn();
   }
 
   public boolean contains(int pos) {
-    return pos >= tokenStartIndex && pos <= tokenEndIndex;
+    return pos >= tokenStartIndex() && pos <= tokenEndIndex();
   }
 
   public boolean containsIndex(@NotNull SourcePos x) {
-    return tokenStartIndex <= x.tokenStartIndex && tokenEndIndex >= x.tokenEndIndex;
+    return tokenStartIndex() <= x.tokenStartIndex() && tokenEndIndex() >= x.tokenEndIndex();
   }
 
   public boolean belongsToSomeFile() { return this != SourcePos.NONE && file.isSomeFile(); }
-  public int linesOfCode() { return endLine - startLine + 1; }
-  public boolean oneLinear() { return startLine == endLine; }
+  public int linesOfCode() { return endLine() - startLine() + 1; }
+  public boolean oneLinear() { return startLine() == endLine(); }
 
   public @NotNull SourcePos sourcePosForSubExpr(@NotNull SourceFile sourceFile, @NotNull SeqView<SourcePos> params) {
     var restParamSourcePos = params.fold(SourcePos.NONE, (acc, it) -> {
       if (acc == SourcePos.NONE) return it;
-      return new SourcePos(sourceFile, acc.tokenStartIndex(), it.tokenEndIndex(),
-        acc.startLine(), acc.startColumn(), it.endLine(), it.endColumn());
+      return new SourcePos(sourceFile, acc.tokenStartIndex(), it.tokenEndIndex());
     });
-    return new SourcePos(
-      sourceFile,
-      restParamSourcePos.tokenStartIndex(),
-      tokenEndIndex,
-      restParamSourcePos.startLine(),
-      restParamSourcePos.startColumn(),
-      endLine,
-      endColumn
-    );
+    return new SourcePos(sourceFile, restParamSourcePos.tokenStartIndex(), tokenEndIndex());
   }
 
   public @NotNull SourcePos sourcePosSince(@NotNull SourceFile sourceFile, @NotNull SourcePos since) {
-    return new SourcePos(sourceFile,
-      since.tokenStartIndex,
-      tokenEndIndex,
-      since.startLine,
-      since.startColumn,
-      endLine,
-      endColumn);
+    return new SourcePos(sourceFile, since.tokenStartIndex(), tokenEndIndex());
   }
 
   @Override public @NotNull String toString() {
     if (equals(SourcePos.NONE)) return "None";
     if (equals(SourcePos.SER)) return "Deserialized";
-    return "(" + tokenStartIndex + "-" + tokenEndIndex + ") [" + lineColumnString() + ']';
+    return "(" + tokenStartIndex() + "-" + tokenEndIndex() + ") [" + lineColumnString() + ']';
   }
   public @NotNull String lineColumnString() {
-    return startLine + ":" + startColumn + "-" + endLine + ":" + endColumn;
+    return startLine() + ":" + startColumn() + "-" + endLine() + ":" + endColumn();
   }
 
   @Override public int hashCode() {
     // the equals() returns true in tests, so hashCode() should
     // be a constant according to JLS
     if (Global.UNITE_SOURCE_POS) return 0;
-    return Objects.hash(tokenStartIndex, tokenEndIndex, startLine, startColumn, endLine, endColumn);
+    return Long.hashCode(range);
   }
 
   /// Compare this [SourcePos] to given line-column position
@@ -150,6 +146,10 @@ public record SourcePos(
   ///         * negative if the position is before this [SourcePos]
   ///         * positive if the position is after this [SourcePos]
   public int compareVisually(int line, int column) {
+    var startLine = startLine();
+    var startColumn = startColumn();
+    var endLine = endLine();
+    var endColumn = endColumn();
     var singleLine = startLine == endLine;
     var afterStartCol = startColumn <= column;
     var beforeEndCol = column <= endColumn;
@@ -177,12 +177,11 @@ public record SourcePos(
       : -1;
   }
 
-  @Override public int compareTo(@NotNull SourcePos o) { return Integer.compare(tokenStartIndex, o.tokenStartIndex); }
+  @Override public int compareTo(@NotNull SourcePos o) { return Integer.compare(tokenStartIndex(), o.tokenStartIndex()); }
   public boolean isEmpty() { return length() <= 0; }
-  private int length() { return tokenEndIndex - tokenStartIndex + 1; }
+  private int length() { return tokenEndIndex() - tokenStartIndex() + 1; }
   public @NotNull SourcePos coalesceLeft() {
-    return new SourcePos(file, tokenStartIndex, tokenStartIndex - 1,
-      startLine, startColumn, startLine, startColumn);
+    return new SourcePos(file, tokenStartIndex(), tokenStartIndex() - 1);
   }
 
   public enum NowLoc {
@@ -190,25 +189,23 @@ public record SourcePos(
   }
 
   public @NotNull NowLoc nowLoc(int currentLine) {
+    var startLine = startLine();
+    var endLine = endLine();
     if (currentLine == startLine) return oneLinear() ? NowLoc.Shot : NowLoc.Start;
     if (currentLine == endLine) return NowLoc.End;
     if (currentLine > startLine && currentLine < endLine) return NowLoc.Between;
     return NowLoc.None;
   }
 
-  public static @NotNull SourcePos of(@NotNull TextRange range, @NotNull SourceFile file, boolean singleLine) {
-    var start = offsetToLineColumn(file, range.getStartOffset(), 0);
-    var length = range.getLength();
-    var endOffset = range.getEndOffset() - (length == 0 ? 0 : 1);
-    var end = singleLine || length == 0
-      ? LineColumn.of(start.line, start.column + length - 1)
-      : offsetToLineColumn(file, endOffset, start.line);
-    return new SourcePos(file, range.getStartOffset(), endOffset,
-      start.line + 1, start.column, end.line + 1, end.column);
+  public static @NotNull SourcePos of(@NotNull TextRange range, @NotNull SourceFile file) {
+    var endOffset = range.getEndOffset() - (range.isEmpty() ? 0 : 1);
+    return new SourcePos(file, range.getStartOffset(), endOffset);
   }
 
   public static @NotNull LineColumn offsetToLineColumn(@NotNull SourceFile file, int pos, int lowerBound) {
     var offsets = file.lineOffsets();
+    // A file without any line, like an empty one
+    if (offsets.isEmpty()) return LineColumn.of(0, pos);
     var line = offsets.binarySearch(lowerBound, offsets.size(), pos);
     // We want `line` to be the last index in the array whose value is no greater than `pos`.
     // If `pos` exists in the array then `line = <index of pos>` from the binary search.
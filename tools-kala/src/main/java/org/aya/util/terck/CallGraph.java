@@ -36,6 +36,16 @@ public record CallGraph<C, T>(
     calls.append(matrix);
   }
 
+  /**
+   * Like {@link #put}, but drops the matrix if an identical one (see {@link CallMatrix#sameRelations})
+   * is already there. Combined matrices are often duplicated, and each duplicate multiplies the work of {@link #complete}.
+   */
+  public void putDistinct(@NotNull CallMatrix<C, T> matrix) {
+    var calls = graph.getOrPut(matrix.domain(), MutableLinkedHashMap::of)
+      .getOrPut(matrix.codomain(), MutableList::create);
+    if (calls.noneMatch(matrix::sameRelations)) calls.append(matrix);
+  }
+
   /** @return true if there's no edge */
   public boolean isEmpty() {
     return graph.allMatch((_, ts) -> ts.allMatch((_, t) -> t.isEmpty()));
@@ -59,7 +69,7 @@ public record CallGraph<C, T>(
       var indirect = step.graph.getOrNull(mat.codomain());
       if (indirect != null) indirect.forEach((_, indMats) -> indMats.forEach(ind -> {
         var combine = CallMatrix.combine(mat, ind);
-        comb.put(combine);
+        comb.putDistinct(combine);
       }));
     })));
     return comb;
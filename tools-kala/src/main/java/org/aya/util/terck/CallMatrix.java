@@ -1,21 +1,23 @@
-// Copyright (c) 2020-2024 Tesla (Yinsen) Zhang.
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 package org.aya.util.terck;
 
-import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
 import org.aya.pretty.doc.Doc;
 import org.aya.pretty.doc.Docile;
-import org.aya.util.ArrayUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.Debug;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+
 /// A call matrix for a call `f --> g` has dimensions `arity(g) × arity(f)`.
 /// Each row corresponds to one argument in the call to `g` (the codomain).
 /// Each column corresponds to one formal argument of caller `f` (the domain).
 ///
-/// @param cols domain tele size
-/// @param rows codomain telescope size
+/// @param cols      domain tele size
+/// @param rows      codomain telescope size
+/// @param relations the matrix in row-major order, see [PackedRelation]
 /// @author kiva
 /// @see Relation
 @Debug.Renderer(text = "toDoc().debugRender()")
@@ -24,34 +26,40 @@ public record CallMatrix<Callable, Def>(
   @NotNull Def domain, @NotNull Def codomain,
   int cols, // domainTele
   int rows, // codomainTele
-  @NotNull Relation[][] matrix
+  int @NotNull [] relations
 ) implements Docile, Selector.Candidate<CallMatrix<Callable, Def>> {
   public CallMatrix(
     @NotNull Callable callable,
     @NotNull Def domain, @NotNull Def codomain,
     int domainTele, int codomainTele
   ) {
-    // TODO: sparse matrix?
+    // Filled with PackedRelation.UNKNOWN
     this(callable, domain, codomain, domainTele, codomainTele,
-      new Relation[codomainTele][domainTele]);
-    ArrayUtil.fill(matrix, Relation.unk());
+      new int[codomainTele * domainTele]);
   }
 
   public void set(int col, int row, @NotNull Relation relation) {
-    matrix[row][col] = relation;
+    relations[row * cols + col] = PackedRelation.of(relation);
+  }
+
+  public @NotNull Relation get(int col, int row) {
+    return PackedRelation.toRelation(relations[row * cols + col]);
+  }
+
+  /** @return true if the two matrices describe calls between the same definitions with the same relations */
+  public boolean sameRelations(@NotNull CallMatrix<Callable, Def> other) {
+    return domain == other.domain && codomain == other.codomain && Arrays.equals(relations, other.relations);
   }
 
   /** Compare two call matrices by their decrease amount. */
   @Override public @NotNull Selector.DecrOrd compare(@NotNull CallMatrix<Callable, Def> other) {
     if (this.domain != other.domain || this.codomain != other.codomain) return Selector.DecrOrd.Unk;
     var rel = Selector.DecrOrd.Eq;
-    for (int i = 0; i < rows(); i++)
-      for (int j = 0; j < cols(); j++) {
-        var m = this.matrix[i][j];
-        var n = other.matrix[i][j];
-        var cmp = m.compare(n);
-        rel = rel.mul(cmp);
-      }
+    for (int i = 0; i < relations.length; i++) {
+      rel = rel.mul(PackedRelation.compare(relations[i], other.relations[i]));
+      // Unk is absorbing
+      if (rel == Selector.DecrOrd.Unk) break;
+    }
     return rel;
   }
 
@@ -68,16 +76,31 @@ public record CallMatrix<Callable, Def>(
     assert B.domain == A.codomain : "The combine cannot be applied to these two call matrices";
 
     var BA = new CallMatrix<>(B.callable, A.domain, B.codomain, A.cols, B.rows);
-    for (int i = 0; i < BA.rows(); i++)
-      for (int j = 0; j < BA.cols(); j++)
-        for (int k = 0; k < B.cols(); k++)
-          BA.matrix[i][j] = BA.matrix[i][j].add(B.matrix[i][k].mul(A.matrix[k][j]));
+    var a = A.relations;
+    var b = B.relations;
+    var ba = BA.relations;
+    for (int i = 0; i < B.rows; i++)
+      for (int k = 0; k < B.cols; k++) {
+        var bik = b[i * B.cols + k];
+        // unknown is the zero of the semi-ring, so most of the products are skipped
+        if (bik == PackedRelation.UNKNOWN) continue;
+        for (int j = 0; j < A.cols; j++) {
+          var akj = a[k * A.cols + j];
+          if (akj == PackedRelation.UNKNOWN) continue;
+          var index = i * A.cols + j;
+          ba[index] = PackedRelation.add(ba[index], PackedRelation.mul(bik, akj));
+        }
+      }
     return BA;
   }
 
   public @NotNull Doc toDoc() {
-    var lines = ImmutableSeq.from(matrix)
-      .map(row -> Doc.stickySep(ImmutableSeq.from(row).map(Relation::toDoc)));
+    var lines = MutableList.<Doc>create();
+    for (int row = 0; row < rows; row++) {
+      var line = MutableList.<Doc>create();
+      for (int col = 0; col < cols; col++) line.append(get(col, row).toDoc());
+      lines.append(Doc.stickySep(line));
+    }
     return Doc.vcat(lines);
   }
 }
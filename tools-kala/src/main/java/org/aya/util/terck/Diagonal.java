@@ -16,7 +16,7 @@ public record Diagonal<C, T>(
   public static <C, T> @NotNull Diagonal<C, T> create(@NotNull CallMatrix<C, T> matrix) {
     assert matrix.rows() == matrix.cols();
     var diag = IntRange.closedOpen(0, matrix.rows())
-      .mapToObjTo(MutableList.create(), i -> matrix.matrix()[i][i])
+      .mapToObjTo(MutableList.create(), i -> matrix.get(i, i))
       .toSeq();
     return new Diagonal<>(matrix, diag);
   }
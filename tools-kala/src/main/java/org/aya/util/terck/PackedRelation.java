@@ -0,0 +1,69 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.util.terck;
+
+import org.jetbrains.annotations.NotNull;
+
+/// [Relation]s encoded as `int`s, so that [CallMatrix] can be stored in a flat `int[]`
+/// and multiplied without allocating any [Relation] object.
+///
+/// [#UNKNOWN] is `0`, so a fresh `int[]` is a matrix full of unknowns,
+/// and `Decrease(usable, size)` is encoded as `((size << 1) | usable) + 1`.
+///
+/// @see Relation
+public interface PackedRelation {
+  int UNKNOWN = 0;
+  int EQ = decr(true, 0);
+  int LT = decr(true, 1);
+
+  static int decr(boolean usable, int size) {
+    assert size >= 0;
+    return ((size << 1) | (usable ? 1 : 0)) + 1;
+  }
+
+  static boolean usable(int rel) { return ((rel - 1) & 1) != 0; }
+  static int size(int rel) { return (rel - 1) >>> 1; }
+
+  static int of(@NotNull Relation relation) {
+    return switch (relation) {
+      case Relation.Unknown _ -> UNKNOWN;
+      case Relation.Decrease(var usable, var size) -> decr(usable, size);
+    };
+  }
+
+  static @NotNull Relation toRelation(int rel) {
+    if (rel == UNKNOWN) return Relation.unk();
+    return Relation.decr(usable(rel), size(rel));
+  }
+
+  /// @see Relation#mul
+  static int mul(int lhs, int rhs) {
+    if (lhs == UNKNOWN || rhs == UNKNOWN) return UNKNOWN;
+    return decr(usable(lhs) || usable(rhs), size(lhs) + size(rhs));
+  }
+
+  /// @see Relation#add
+  static int add(int lhs, int rhs) {
+    return switch (compare(lhs, rhs)) {
+      case Lt -> rhs;   // rhs decreases more
+      case Eq, Gt -> lhs;
+      case Unk -> throw new AssertionError("unreachable");
+    };
+  }
+
+  /// @see Relation#compare
+  static @NotNull Selector.DecrOrd compare(int lhs, int rhs) {
+    if (lhs == rhs) return Selector.DecrOrd.Eq;
+    // Unknown means no decrease, so it's always less than any decrease
+    if (lhs == UNKNOWN) return Selector.DecrOrd.Lt;
+    if (rhs == UNKNOWN) return Selector.DecrOrd.Gt;
+    // Usable decreases are always greater than unusable ones, or
+    // the larger the size is, the more the argument decreases.
+    return Selector.DecrOrd.compareBool(usable(lhs), usable(rhs))
+      .add(Selector.DecrOrd.compareInt(size(lhs), size(rhs)));
+  }
+
+  static boolean isDecreasing(int rel) {
+    return rel != UNKNOWN && usable(rel) && size(rel) > 0;
+  }
+}
@@ -12,6 +12,7 @@ import org.jetbrains.annotations.NotNull;
  * Relations between size of formal function parameter and function argument
  * in one recursive call.
  * A semi-ring with zero = {@link #unk()}, one = {@link #eq()}.
+ * Call matrices store them as {@link PackedRelation}s.
  *
  * @author kiva
  */
@@ -40,12 +41,7 @@ public sealed interface Relation extends Docile, Selector.Candidate<Relation> {
   }
 
   @Contract(pure = true) default @NotNull Relation mul(@NotNull Relation rhs) {
-    if (rhs instanceof Unknown) return rhs;
-    return switch (this) {
-      case Unknown lhs -> lhs;
-      case Decrease l when rhs instanceof Decrease(boolean usable, int size) -> decr(l.usable || usable, l.size + size);
-      default -> throw new AssertionError("unreachable");
-    };
+    return PackedRelation.toRelation(PackedRelation.mul(PackedRelation.of(this), PackedRelation.of(rhs)));
   }
 
   /** @return the side that decreases more */
@@ -62,18 +58,10 @@ public sealed interface Relation extends Docile, Selector.Candidate<Relation> {
    *
    * @return {@link Selector.DecrOrd#Lt} if this decreases less than the other,
    * {@link Selector.DecrOrd#Gt} if this decreases more.
+   * @see PackedRelation#compare
    */
   @Override default @NotNull Selector.DecrOrd compare(@NotNull Relation other) {
-    if (this.isUnknown() && other.isUnknown()) return Selector.DecrOrd.Eq;
-    // Unknown means no decrease, so it's always less than any decrease
-    if (this.isUnknown() && !other.isUnknown()) return Selector.DecrOrd.Lt;
-    if (!this.isUnknown() && other.isUnknown()) return Selector.DecrOrd.Gt;
-    var ldec = (Decrease) this;
-    var rdec = (Decrease) other;
-    // Usable decreases are always greater than unusable ones, or
-    // the larger the size is, the more the argument decreases.
-    return Selector.DecrOrd.compareBool(ldec.usable, rdec.usable)
-      .add(Selector.DecrOrd.compareInt(ldec.size, rdec.size));
+    return PackedRelation.compare(PackedRelation.of(this), PackedRelation.of(other));
   }
 
   default boolean isUnknown() {
@@ -81,7 +69,7 @@ public sealed interface Relation extends Docile, Selector.Candidate<Relation> {
   }
 
   default boolean isDecreasing() {
-    return this instanceof Decrease(boolean usable, int size) && usable && size > 0;
+    return PackedRelation.isDecreasing(PackedRelation.of(this));
   }
 
   static @NotNull Relation fromCompare(int compare) {
@@ -0,0 +1,142 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+
+import kala.collection.immutable.ImmutableSeq;
+import org.aya.util.terck.CallMatrix;
+import org.aya.util.terck.PackedRelation;
+import org.aya.util.terck.Relation;
+import org.aya.util.terck.Selector.DecrOrd;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/// Checks [PackedRelation] and [CallMatrix] against the semi-ring of [Relation]s written on the objects directly.
+public class CallMatrixTest {
+  /// Unknown, and the decreases of size 0 (`=`) to 3, usable or not
+  private static final ImmutableSeq<Relation> RELATIONS = ImmutableSeq.of(true, false)
+    .flatMap(usable -> ImmutableSeq.fill(4, size -> Relation.decr(usable, size)))
+    .prepended(Relation.unk());
+
+  private static @NotNull DecrOrd compare(@NotNull Relation l, @NotNull Relation r) {
+    if (l.isUnknown() && r.isUnknown()) return DecrOrd.Eq;
+    if (l.isUnknown()) return DecrOrd.Lt;
+    if (r.isUnknown()) return DecrOrd.Gt;
+    var ld = (Relation.Decrease) l;
+    var rd = (Relation.Decrease) r;
+    return DecrOrd.compareBool(ld.usable(), rd.usable()).add(DecrOrd.compareInt(ld.size(), rd.size()));
+  }
+
+  private static @NotNull Relation mul(@NotNull Relation l, @NotNull Relation r) {
+    if (l.isUnknown() || r.isUnknown()) return Relation.unk();
+    var ld = (Relation.Decrease) l;
+    var rd = (Relation.Decrease) r;
+    return Relation.decr(ld.usable() || rd.usable(), ld.size() + rd.size());
+  }
+
+  private static @NotNull Relation add(@NotNull Relation l, @NotNull Relation r) {
+    return compare(l, r) == DecrOrd.Lt ? r : l;
+  }
+
+  @Test public void encoding() {
+    // A fresh array is full of unknowns
+    assertEquals(0, PackedRelation.UNKNOWN);
+    assertEquals(PackedRelation.UNKNOWN, PackedRelation.of(Relation.unk()));
+    assertEquals(PackedRelation.EQ, PackedRelation.of(Relation.eq()));
+    assertEquals(PackedRelation.LT, PackedRelation.of(Relation.lt()));
+    assertEquals(RELATIONS.size(), RELATIONS.map(PackedRelation::of).distinct().size());
+    for (var rel : RELATIONS) {
+      assertEquals(rel, PackedRelation.toRelation(PackedRelation.of(rel)));
+      assertEquals(rel.isDecreasing(), PackedRelation.isDecreasing(PackedRelation.of(rel)));
+    }
+    assertFalse(PackedRelation.isDecreasing(PackedRelation.UNKNOWN));
+    assertFalse(PackedRelation.isDecreasing(PackedRelation.EQ));
+    assertTrue(PackedRelation.isDecreasing(PackedRelation.LT));
+    assertFalse(PackedRelation.isDecreasing(PackedRelation.decr(false, 1)));
+  }
+
+  @Test public void lattice() {
+    // Unknown decreases less than any decrease, and it is the zero of the semi-ring
+    assertEquals(DecrOrd.Lt, PackedRelation.compare(PackedRelation.UNKNOWN, PackedRelation.EQ));
+    assertEquals(DecrOrd.Gt, PackedRelation.compare(PackedRelation.LT, PackedRelation.UNKNOWN));
+    assertEquals(PackedRelation.LT, PackedRelation.add(PackedRelation.UNKNOWN, PackedRelation.LT));
+    assertEquals(PackedRelation.EQ, PackedRelation.add(PackedRelation.EQ, PackedRelation.UNKNOWN));
+    assertEquals(PackedRelation.UNKNOWN, PackedRelation.mul(PackedRelation.UNKNOWN, PackedRelation.LT));
+    // Usable decreases are not told apart by their sizes, but they decrease more than unusable ones
+    // that are not larger, and `=` is the one of the semi-ring
+    assertEquals(DecrOrd.Eq, PackedRelation.compare(PackedRelation.EQ, PackedRelation.LT));
+    assertEquals(DecrOrd.Gt, PackedRelation.compare(PackedRelation.decr(true, 2), PackedRelation.decr(false, 1)));
+    assertEquals(DecrOrd.Unk, PackedRelation.compare(PackedRelation.EQ, PackedRelation.decr(false, 1)));
+    assertEquals(PackedRelation.LT, PackedRelation.mul(PackedRelation.EQ, PackedRelation.LT));
+    assertEquals(PackedRelation.decr(true, 2), PackedRelation.mul(PackedRelation.LT, PackedRelation.LT));
+
+    for (var l : RELATIONS)
+      for (var r : RELATIONS) {
+        var pl = PackedRelation.of(l);
+        var pr = PackedRelation.of(r);
+        assertEquals(compare(l, r), PackedRelation.compare(pl, pr), l + " vs " + r);
+        assertEquals(compare(l, r), l.compare(r));
+        assertEquals(mul(l, r), PackedRelation.toRelation(PackedRelation.mul(pl, pr)), l + " * " + r);
+        assertEquals(mul(l, r), l.mul(r));
+        if (compare(l, r) != DecrOrd.Unk) {
+          assertEquals(add(l, r), PackedRelation.toRelation(PackedRelation.add(pl, pr)), l + " + " + r);
+          assertEquals(add(l, r), l.add(r));
+        }
+      }
+  }
+
+  private static @NotNull CallMatrix<String, String>
+  random(@NotNull Random random, @NotNull String domain, @NotNull String codomain, int cols, int rows) {
+    var matrix = new CallMatrix<>("call", domain, codomain, cols, rows);
+    for (int row = 0; row < rows; row++)
+      for (int col = 0; col < cols; col++) {
+        // Mostly unknown, and the decreases are all usable, as in practice, see [Relation#fromCompare]
+        var rel = random.nextInt(3) == 0 ? Relation.decr(true, random.nextInt(3)) : Relation.unk();
+        matrix.set(col, row, rel);
+      }
+    return matrix;
+  }
+
+  @Test public void combine() {
+    var random = new Random(114514);
+    for (int round = 0; round < 200; round++) {
+      int f = random.nextInt(4) + 1, g = random.nextInt(4) + 1, h = random.nextInt(4) + 1;
+      var a = random(random, "f", "g", f, g);
+      var b = random(random, "g", "h", g, h);
+      var ba = CallMatrix.combine(a, b);
+      assertEquals(f, ba.cols());
+      assertEquals(h, ba.rows());
+      for (int i = 0; i < h; i++)
+        for (int j = 0; j < f; j++) {
+          var expected = Relation.unk();
+          for (int k = 0; k < g; k++) expected = add(expected, mul(b.get(k, i), a.get(j, k)));
+          assertEquals(expected, ba.get(j, i), "(" + i + ", " + j + ") of round " + round);
+        }
+    }
+  }
+
+  @Test public void compareMatrices() {
+    var a = new CallMatrix<>("call", "f", "f", 2, 2);
+    a.set(0, 0, Relation.lt());
+    a.set(1, 1, Relation.eq());
+    var b = new CallMatrix<>("call", "f", "f", 2, 2);
+    b.set(1, 1, Relation.eq());
+    assertEquals(DecrOrd.Gt, a.compare(b));
+    assertEquals(DecrOrd.Lt, b.compare(a));
+    assertFalse(a.sameRelations(b));
+
+    // Decreases more in one place and less in another
+    b.set(1, 0, Relation.lt());
+    assertEquals(DecrOrd.Unk, a.compare(b));
+
+    var c = new CallMatrix<>("call", "f", "f", 2, 2);
+    c.set(0, 0, Relation.lt());
+    c.set(1, 1, Relation.eq());
+    assertTrue(a.sameRelations(c));
+    assertEquals(DecrOrd.Eq, a.compare(c));
+    // Matrices of different calls are not comparable
+    assertEquals(DecrOrd.Unk, a.compare(new CallMatrix<>("call", "f", "g", 2, 2)));
+  }
+}
@@ -1,6 +1,7 @@
 // Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
 // Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
 
+import kala.control.Option;
 import org.aya.util.position.SourceFile;
 import org.aya.util.position.SourcePos;
 import org.junit.jupiter.api.Test;
@@ -8,11 +9,16 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SourcePosTest {
+  /// 20 lines of 30 characters, so the offset of `line:column` is `(line - 1) * 31 + column`
+  private static final SourceFile FILE = new SourceFile("<test>", Option.none(),
+    ("a".repeat(30) + "\n").repeat(20));
+
+  private static int offset(int line, int column) { return (line - 1) * 31 + column; }
+
   @Test
   public void compareTest() {
-    var range = new SourcePos(SourceFile.NONE, 0, 0,
-      5, 10,
-      15, 20);
+    var range = new SourcePos(FILE, offset(5, 10), offset(15, 20));
+    assertEquals("5:10-15:20", range.lineColumnString());
 
     var veryBefore = range.compareVisually(0, 0);
     var before = range.compareVisually(5, 9);
@@ -30,4 +36,14 @@ public class SourcePosTest {
     assertEquals(1, after);
     assertEquals(1, veryAfter);
   }
+
+  @Test
+  public void unionTest() {
+    var a = new SourcePos(FILE, offset(1, 3), offset(1, 5));
+    var b = new SourcePos(FILE, offset(2, 0), offset(3, 7));
+    assertEquals("1:3-3:7", a.union(b).lineColumnString());
+    assertSame(a, a.union(SourcePos.NONE));
+    assertSame(a, SourcePos.NONE.union(a));
+    assertEquals("-1:-1--1:-1", SourcePos.NONE.lineColumnString());
+  }
 }
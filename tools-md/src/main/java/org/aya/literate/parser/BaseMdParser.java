@@ -454,7 +454,7 @@ public class BaseMdParser {
       start = Math.min(start, node.getStartOffset());
       end = Math.max(end, node.getEndOffset());
     }
-    return SourcePos.of(new TextRange(start, end), file, false);
+    return SourcePos.of(new TextRange(start, end), file);
   }
   // endregion Helper
 }
@@ -20,12 +20,17 @@ public interface OrgaTycker<T, E extends Exception> {
   default void tyckSCC(@NotNull ImmutableSeq<T> scc) throws E {
     // we are more likely to check correct programs.
     // I'm not sure whether it's necessary to optimize on our own.
-    var sccTycker = sccTycker();
+    skip(sccTycker().tyckSCC(pending(scc)));
+  }
+
+  /** @return members of {@param scc} that are not skipped due to failed dependencies */
+  default @NotNull ImmutableSeq<T> pending(@NotNull ImmutableSeq<T> scc) {
     var skipped = skippedSet();
-    skip(sccTycker.tyckSCC(skipped.isEmpty() ? scc : scc.filterNot(skipped::contains)));
+    return skipped.isEmpty() ? scc : scc.filterNot(skipped::contains);
   }
 
-  private void skip(@NotNull ImmutableSeq<T> failed) {
+  /** Mark {@param failed} and all their usages as skipped. */
+  default void skip(@NotNull ImmutableSeq<T> failed) {
     var skipped = skippedSet();
     failed.forEach(f -> skip(skipped, f));
   }
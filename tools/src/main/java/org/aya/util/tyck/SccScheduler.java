@@ -0,0 +1,114 @@
+// Copyright (c) 2020-2025 Tesla (Yinsen) Zhang.
+// Use of this source code is governed by the MIT license that can be found in the LICENSE.md file.
+package org.aya.util.tyck;
+
+import kala.collection.immutable.ImmutableSeq;
+import kala.collection.mutable.MutableList;
+import kala.collection.mutable.MutableMap;
+import kala.collection.mutable.MutableSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/// Runs SCCs on a work-stealing pool, an SCC is started as soon as
+/// all the SCCs it depends on are finished.
+///
+/// Tasks are free to run in any order, but {@code onFinished} is always
+/// called in the order of the given SCCs, so that outputs (like problems
+/// collected by each task) can be merged deterministically.
+///
+/// @param jobs the parallelism, 1 means running the SCCs one after another
+public record SccScheduler<T>(int jobs) {
+  @FunctionalInterface
+  public interface Task<T, E extends Exception> {
+    void run(int index, @NotNull ImmutableSeq<T> scc) throws E;
+  }
+
+  /// @param sccs         SCCs in topological order, dependencies come first
+  /// @param dependencies direct dependencies of a vertex, vertices not in {@param sccs} are ignored
+  /// @param onFinished   called with the index of each SCC, in order, after the task of it
+  ///                     (and of all the SCCs before it) finished
+  /// @throws E the failure of the first failed SCC (in order of {@param sccs})
+  public <E extends Exception> void run(
+    @NotNull ImmutableSeq<ImmutableSeq<T>> sccs,
+    @NotNull Function<T, ? extends Iterable<T>> dependencies,
+    @NotNull Task<T, E> task,
+    @NotNull IntConsumer onFinished
+  ) throws E {
+    if (jobs <= 1) {
+      for (int i = 0; i < sccs.size(); i++) {
+        try {
+          task.run(i, sccs.get(i));
+        } finally {
+          onFinished.accept(i);
+        }
+      }
+      return;
+    }
+
+    var indexOf = MutableMap.<T, Integer>create();
+    for (int i = 0; i < sccs.size(); i++) {
+      var index = i;
+      sccs.get(i).forEach(t -> indexOf.put(t, index));
+    }
+
+    var size = sccs.size();
+    var finished = new boolean[size];
+    var flushed = new int[]{0};
+    var done = MutableList.<CompletableFuture<?>>create();
+    var tasks = new CompletableFuture<?>[size];
+    try (var pool = new ForkJoinPool(jobs)) {
+      for (int i = 0; i < size; i++) {
+        var index = i;
+        var scc = sccs.get(i);
+        var deps = MutableSet.<Integer>create();
+        scc.forEach(t -> dependencies.apply(t).forEach(dep -> {
+          var j = indexOf.getOrNull(dep);
+          if (j != null && j != index) deps.add(j);
+        }));
+        // Dependencies are always scheduled before, because the SCCs are topologically sorted
+        var depTasks = deps.toSeq().map(j -> tasks[j]).toArray(CompletableFuture<?>[]::new);
+        tasks[i] = CompletableFuture.allOf(depTasks).thenRunAsync(() -> {
+          try {
+            task.run(index, scc);
+          } catch (Exception e) {
+            throw new CompletionException(e);
+          }
+        }, pool);
+        done.append(tasks[i].whenComplete((_, _) -> {
+          synchronized (finished) {
+            finished[index] = true;
+            while (flushed[0] < size && finished[flushed[0]]) onFinished.accept(flushed[0]++);
+          }
+        }));
+      }
+      for (var future : done) future.exceptionally(_ -> null).join();
+    }
+
+    for (var future : tasks) {
+      if (!future.isCompletedExceptionally()) continue;
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        rethrow(e);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <E extends Exception> void rethrow(@NotNull CompletionException e) throws E {
+    var cause = e.getCause();
+    // The failure of a dependency is propagated to its dependents wrapped again
+    while (cause instanceof CompletionException nested && nested.getCause() != null) cause = nested.getCause();
+    switch (cause) {
+      case RuntimeException r -> throw r;
+      case Error r -> throw r;
+      case null -> throw e;
+      default -> throw (E) cause;
+    }
+  }
+}